@@ -0,0 +1,30 @@
+package edu.ucsal.fiadopay.bench;
+
+import edu.ucsal.fiadopay.core.AnnotationScanner;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo de startup do registro de anotações em uma JVM nova a cada fork:
+ * a varredura antiga de diretórios (Class.forName em toda classe do
+ * pacote) contra o índice gerado na compilação.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+@State(Scope.Benchmark)
+public class AnnotationIndexBenchmark {
+
+    @Benchmark
+    public AnnotationScanner classpathScan() {
+        return AnnotationScanner.scanClasspath("edu.ucsal.fiadopay");
+    }
+
+    @Benchmark
+    public AnnotationScanner generatedIndex() {
+        return new AnnotationScanner();
+    }
+}
@@ -0,0 +1,63 @@
+package edu.ucsal.fiadopay.bench;
+
+import edu.ucsal.fiadopay.core.antifraud.HighAmountRule;
+import edu.ucsal.fiadopay.core.antifraud.RulePipeline;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caminho antigo (instância + getMethod + Method.invoke por pagamento) contra
+ * o {@link RulePipeline} compilado. Rode com {@code -prof gc} para ver a
+ * alocação por operação.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AntiFraudBenchmark {
+
+    private final Map<String, Class<?>> rules = Map.of("HighAmount", HighAmountRule.class);
+    private RulePipeline pipeline;
+
+    @Param({"250.0", "1500.0"})
+    double amount;
+
+    @Setup
+    public void setup() {
+        pipeline = RulePipeline.compile(rules);
+    }
+
+    @Benchmark
+    public int reflective() throws Exception {
+        for (Map.Entry<String, Class<?>> entry : rules.entrySet()) {
+            Object instance = entry.getValue().getDeclaredConstructor().newInstance();
+            if (!invokeValidate(instance, amount)) {
+                return 0;
+            }
+        }
+        return -1;
+    }
+
+    @Benchmark
+    public int compiled() {
+        return pipeline.firstFailure(amount);
+    }
+
+    // cópia do PaymentProcessor.invokeValidate original, com o threshold fixo de antes
+    private static boolean invokeValidate(Object rule, double amount) throws Exception {
+        Class<?> c = rule.getClass();
+        try {
+            Method m = c.getMethod("validate", double.class, double.class);
+            return (Boolean) m.invoke(rule, amount, 1000.0);
+        } catch (NoSuchMethodException e) {
+            Method m = c.getMethod("validate", BigDecimal.class);
+            return (Boolean) m.invoke(rule, BigDecimal.valueOf(amount));
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package edu.ucsal.fiadopay.bench;
+
+import edu.ucsal.fiadopay.core.AsyncExecutor;
+import edu.ucsal.fiadopay.core.MerchantShardScheduler;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Carga de milhares de pagamentos PENDING simultâneos passando pelo estágio de
+ * atraso do {@link AsyncExecutor}. O score é o tempo até o último concluir e
+ * deve ficar em torno de delayMs + epsilon, independente de {@code pending}.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DelayStageLoadBenchmark {
+
+    private static final long EPSILON_MS = 500;
+
+    @Param({"1000", "5000", "20000"})
+    int pending;
+
+    @Param({"1500"})
+    long delayMs;
+
+    private AsyncExecutor executor;
+    private MerchantShardScheduler shards;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        // o benchmark não usa a lane por merchant: o cache de merchants não é consultado
+        shards = new MerchantShardScheduler(null, 1, 1000, 50);
+        executor = new AsyncExecutor(pending, AsyncExecutor.OverflowPolicy.REJECT,
+                16, AsyncExecutor.OverflowPolicy.SHED, 10_000, shards);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        executor.shutdown();
+        shards.stop();
+    }
+
+    @Benchmark
+    public long allPendingComplete() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(pending);
+        long start = System.nanoTime();
+        for (int i = 0; i < pending; i++) {
+            executor.schedule(AsyncExecutor.Lane.PAYMENT, done::countDown, delayMs);
+        }
+        done.await();
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        if (elapsedMs > delayMs + EPSILON_MS) {
+            throw new IllegalStateException(pending + " payments took " + elapsedMs
+                    + " ms, expected <= " + (delayMs + EPSILON_MS) + " ms");
+        }
+        return elapsedMs;
+    }
+}
@@ -0,0 +1,40 @@
+package edu.ucsal.fiadopay.bench;
+
+import edu.ucsal.fiadopay.core.id.RandomIdGenerator;
+import edu.ucsal.fiadopay.core.id.SnowflakeIdGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Geração de IDs de pagamento: o formato antigo (UUID truncado), a
+ * estratégia uuid completa e o Snowflake, com 4 threads disputando o CAS.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class IdGeneratorBenchmark {
+
+    private final RandomIdGenerator random = new RandomIdGenerator();
+    private final SnowflakeIdGenerator snowflake = new SnowflakeIdGenerator(1);
+
+    @Benchmark
+    public String legacyTruncatedUuid() {
+        return "pay_" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    @Benchmark
+    public String randomStrategy() {
+        return random.next("pay_");
+    }
+
+    @Benchmark
+    public String snowflakeStrategy() {
+        return snowflake.next("pay_");
+    }
+}
@@ -0,0 +1,45 @@
+package edu.ucsal.fiadopay.bench;
+
+import edu.ucsal.fiadopay.core.pricing.InstallmentPricing;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cálculo de juros do cartão: as duas versões antigas (BigDecimal.pow no
+ * PaymentService e Math.pow em double no PaymentProcessor) contra a tabela
+ * de fatores pré-calculados do InstallmentPricing.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InterestBenchmark {
+
+    @Param({"2", "12"})
+    int installments;
+
+    private final BigDecimal amount = new BigDecimal("250.50");
+    private final InstallmentPricing pricing = new InstallmentPricing("CARD=1.0");
+
+    @Benchmark
+    public BigDecimal serviceBigDecimalPow() {
+        var factor = new BigDecimal("1.01").pow(installments);
+        return amount.multiply(factor).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    @Benchmark
+    public BigDecimal processorMathPow() {
+        double factor = Math.pow(1 + 1.0 / 100.0, installments);
+        return amount.multiply(BigDecimal.valueOf(factor)).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    @Benchmark
+    public BigDecimal precomputedTable() {
+        return pricing.total(amount, 1.0, installments);
+    }
+}
@@ -0,0 +1,82 @@
+package edu.ucsal.fiadopay.bench;
+
+import edu.ucsal.fiadopay.FiadoPayApplication;
+import edu.ucsal.fiadopay.controller.PaymentRequest;
+import edu.ucsal.fiadopay.domain.Merchant;
+import edu.ucsal.fiadopay.repo.MerchantRepository;
+import edu.ucsal.fiadopay.service.PaymentService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Ciclo completo createPayment → APPROVED com o contexto Spring real e H2 em
+ * memória, sem servidor HTTP. O processing-delay fica em poucos milissegundos
+ * apenas para o processamento não correr antes do commit da criação.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PaymentCycleBenchmark {
+
+    private static final long TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private ConfigurableApplicationContext context;
+    private PaymentService service;
+    private String auth;
+    private PaymentRequest request;
+
+    @Param({"PIX", "CARD"})
+    String method;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = new SpringApplicationBuilder(FiadoPayApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:bench-" + UUID.randomUUID() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.show-sql=false",
+                        "fiadopay.processing-delay-ms=5")
+                .run();
+        service = context.getBean(PaymentService.class);
+
+        var merchant = context.getBean(MerchantRepository.class).save(Merchant.builder()
+                .name("bench-" + UUID.randomUUID())
+                .clientId(UUID.randomUUID().toString())
+                .clientSecret("secret")
+                .status(Merchant.Status.ACTIVE)
+                .build());
+        auth = "Bearer FAKE-" + merchant.getId();
+        request = new PaymentRequest(method, "BRL", new BigDecimal("250.50"), "CARD".equals(method) ? 12 : 1, "bench");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public String createUntilApproved() {
+        String id = service.createPayment(auth, null, request).id();
+        long deadline = System.nanoTime() + TIMEOUT_NANOS;
+        while (true) {
+            String status = service.getPayment(id).status();
+            if (!"PENDING".equals(status)) {
+                return status;
+            }
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("Payment " + id + " still PENDING");
+            }
+            LockSupport.parkNanos(100_000);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package edu.ucsal.fiadopay.bench;
+
+import edu.ucsal.fiadopay.core.ratelimit.RateLimiter;
+import edu.ucsal.fiadopay.core.ratelimit.TokenBucket;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo do rate limiting por requisição com 4 threads: o CAS de um balde
+ * disputado por todas, o caminho completo do RateLimiter (lookup + CAS)
+ * com um merchant quente e espalhado por muitos, e o caminho de rejeição.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class RateLimiterBenchmark {
+
+    // taxa alta o bastante para o benchmark medir só o custo de aceitar
+    private static final int UNLIMITED = 1_000_000_000;
+
+    @Param({"1000"})
+    int merchants;
+
+    private TokenBucket sharedBucket;
+    private TokenBucket exhaustedBucket;
+    private RateLimiter limiter;
+
+    @Setup
+    public void setup() {
+        long now = System.nanoTime();
+        sharedBucket = new TokenBucket(UNLIMITED, UNLIMITED, now);
+        exhaustedBucket = new TokenBucket(1, 1, now);
+        exhaustedBucket.tryAcquire(now);
+        limiter = new RateLimiter(2.0);
+    }
+
+    @Benchmark
+    public long bucketContended() {
+        return sharedBucket.tryAcquire(System.nanoTime());
+    }
+
+    @Benchmark
+    public long bucketRejected() {
+        return exhaustedBucket.tryAcquire(System.nanoTime());
+    }
+
+    @Benchmark
+    public long limiterHotMerchant() {
+        return limiter.tryAcquire(1, "payments.create", UNLIMITED);
+    }
+
+    @Benchmark
+    public long limiterSpreadMerchants() {
+        long merchantId = ThreadLocalRandom.current().nextInt(merchants);
+        return limiter.tryAcquire(merchantId, "payments.create", UNLIMITED);
+    }
+}
@@ -0,0 +1,42 @@
+package edu.ucsal.fiadopay.bench;
+
+import edu.ucsal.fiadopay.controller.PaymentResponse;
+import edu.ucsal.fiadopay.domain.Payment;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResponseMappingBenchmark {
+
+    private Payment payment;
+
+    @Setup
+    public void setup() {
+        payment = Payment.builder()
+                .id("pay_bench")
+                .merchantId(1L)
+                .method("CARD")
+                .amount(new BigDecimal("250.50"))
+                .currency("BRL")
+                .installments(12)
+                .monthlyInterest(1.0)
+                .totalWithInterest(new BigDecimal("282.27"))
+                .status(Payment.Status.APPROVED)
+                .createdAt(Instant.now())
+                .updatedAt(Instant.now())
+                .build();
+    }
+
+    @Benchmark
+    public PaymentResponse toResponse() {
+        return PaymentResponse.of(payment);
+    }
+}
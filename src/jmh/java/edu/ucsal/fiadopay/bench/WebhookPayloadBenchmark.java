@@ -0,0 +1,60 @@
+package edu.ucsal.fiadopay.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsal.fiadopay.core.WebhookEvent;
+import edu.ucsal.fiadopay.core.WebhookPayloadWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Alocação e tempo por webhook: template com String.formatted (sem assinatura)
+ * contra o WebhookPayloadWriter (JSON em streaming + HMAC-SHA256).
+ * Rode com {@code -prof gc} e compare gc.alloc.rate.norm.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WebhookPayloadBenchmark {
+
+    private WebhookPayloadWriter writer;
+    private WebhookEvent event;
+
+    @Setup
+    public void setup() {
+        writer = new WebhookPayloadWriter(new ObjectMapper(), "ucsal-2025");
+        event = new WebhookEvent("evt_0000000000000", "pay_0000000000000", "APPROVED",
+                new BigDecimal("250.50"), new BigDecimal("282.27"), Instant.parse("2025-01-01T12:00:00Z"));
+    }
+
+    @Benchmark
+    public String formattedTemplate() {
+        return """
+                {
+                  "eventId": "%s",
+                  "paymentId": "%s",
+                  "status": "%s",
+                  "amount": "%s",
+                  "totalWithInterest": "%s",
+                  "updatedAt": "%s"
+                }
+                """.formatted(
+                event.eventId(),
+                event.paymentId(),
+                event.status(),
+                event.amount(),
+                event.totalWithInterest(),
+                event.updatedAt()
+        );
+    }
+
+    @Benchmark
+    public WebhookPayloadWriter.SignedPayload streamingSigned() {
+        return writer.write(event);
+    }
+}
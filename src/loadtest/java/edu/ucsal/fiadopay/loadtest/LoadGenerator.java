@@ -0,0 +1,252 @@
+package edu.ucsal.fiadopay.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Gerador de carga em malha fechada para a API do gateway. Cada worker
+ * (virtual thread) dispara a próxima requisição só depois da anterior
+ * responder, limitado por um pacer global na taxa alvo. O mix cobre token,
+ * criação (métodos, parcelas e retentativas com Idempotency-Key), consulta e
+ * estorno. Um receptor de webhook local mede o tempo de criação até
+ * APPROVED/DECLINED.
+ *
+ * <pre>
+ * --base-url http://localhost:8080  --rate 200  --duration 60
+ * --concurrency 64  --merchants 4  --webhook-port 8081
+ * </pre>
+ */
+public final class LoadGenerator {
+
+    private static final String[] METHODS = {"CARD", "PIX", "DEBIT", "BOLETO"};
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+    private final String baseUrl;
+    private final double rate;
+    private final Duration duration;
+    private final int concurrency;
+    private final int merchantCount;
+    private final int webhookPort;
+
+    private final HttpClient http = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+    private final ObjectMapper json = new ObjectMapper();
+
+    private final Map<String, Histogram> latencies = new ConcurrentSkipListMap<>();
+    private final Histogram settleLatency = new ConcurrentHistogram(HIGHEST_TRACKABLE_NANOS, 3);
+    private final Map<String, Long> createdAt = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> statusCodes = new ConcurrentSkipListMap<>();
+    private final AtomicReferenceArray<String> recentPayments = new AtomicReferenceArray<>(4096);
+    private final AtomicLong recentCursor = new AtomicLong();
+    private final AtomicLong nextSlot = new AtomicLong();
+    private final long intervalNanos;
+
+    private final List<Merchant> merchants = new ArrayList<>();
+
+    private record Merchant(String clientId, String clientSecret, String token) {}
+
+    private LoadGenerator(Map<String, String> args) {
+        this.baseUrl = args.getOrDefault("base-url", "http://localhost:8080");
+        this.rate = Double.parseDouble(args.getOrDefault("rate", "200"));
+        this.duration = Duration.ofSeconds(Long.parseLong(args.getOrDefault("duration", "60")));
+        this.concurrency = Integer.parseInt(args.getOrDefault("concurrency", "64"));
+        this.merchantCount = Integer.parseInt(args.getOrDefault("merchants", "4"));
+        this.webhookPort = Integer.parseInt(args.getOrDefault("webhook-port", "8081"));
+        this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+    }
+
+    public static void main(String[] argv) throws Exception {
+        Map<String, String> args = new HashMap<>();
+        for (int i = 0; i + 1 < argv.length; i += 2) {
+            args.put(argv[i].replaceFirst("^--", ""), argv[i + 1]);
+        }
+        new LoadGenerator(args).run();
+    }
+
+    private void run() throws Exception {
+        try (var receiver = new StubWebhookReceiver(webhookPort, this::onWebhook)) {
+            receiver.start();
+            setupMerchants("http://localhost:" + receiver.port() + StubWebhookReceiver.PATH);
+
+            System.out.printf("Running %s for %ds at %.0f req/s with %d workers%n",
+                    baseUrl, duration.toSeconds(), rate, concurrency);
+            long end = System.nanoTime() + duration.toNanos();
+            nextSlot.set(System.nanoTime());
+            try (var workers = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < concurrency; i++) {
+                    workers.submit(() -> workerLoop(end));
+                }
+            }
+
+            // aguarda os pagamentos pendentes resolverem via webhook
+            long settleDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (!createdAt.isEmpty() && System.nanoTime() < settleDeadline) {
+                Thread.sleep(200);
+            }
+            report(receiver.received());
+        }
+    }
+
+    private void setupMerchants(String webhookUrl) throws IOException, InterruptedException {
+        for (int i = 0; i < merchantCount; i++) {
+            String name = "load-" + UUID.randomUUID().toString().substring(0, 8);
+            JsonNode m = post("/fiadopay/admin/merchants", null, null,
+                    Map.of("name", name, "webhookUrl", webhookUrl), "admin").body;
+            String clientId = m.path("clientId").asText();
+            String secret = m.path("clientSecret").asText();
+            String token = post("/fiadopay/auth/token", null, null,
+                    Map.of("client_id", clientId, "client_secret", secret), "token").body.path("access_token").asText();
+            merchants.add(new Merchant(clientId, secret, token));
+        }
+    }
+
+    private void workerLoop(long end) {
+        var random = ThreadLocalRandom.current();
+        List<String> ownKeys = new ArrayList<>();
+        while (System.nanoTime() < end) {
+            pace();
+            Merchant merchant = merchants.get(random.nextInt(merchants.size()));
+            try {
+                int roll = random.nextInt(100);
+                if (roll < 60) {
+                    create(merchant, ownKeys, random);
+                } else if (roll < 85) {
+                    String id = randomRecentPayment(random);
+                    if (id != null) get("/fiadopay/gateway/payments/" + id, "get");
+                } else if (roll < 95) {
+                    String id = randomRecentPayment(random);
+                    if (id != null) post("/fiadopay/gateway/refunds", "Bearer " + merchant.token(), null,
+                            Map.of("paymentId", id), "refund");
+                } else {
+                    post("/fiadopay/auth/token", null, null,
+                            Map.of("client_id", merchant.clientId(), "client_secret", merchant.clientSecret()), "token");
+                }
+            } catch (IOException e) {
+                count("io-error");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void create(Merchant merchant, List<String> ownKeys, ThreadLocalRandom random)
+            throws IOException, InterruptedException {
+        // 10% das criações repetem uma Idempotency-Key já usada (retentativa do cliente)
+        boolean retry = !ownKeys.isEmpty() && random.nextInt(10) == 0;
+        String key = retry ? ownKeys.get(random.nextInt(ownKeys.size())) : UUID.randomUUID().toString();
+        if (!retry) {
+            ownKeys.add(key);
+            if (ownKeys.size() > 256) ownKeys.remove(0);
+        }
+        String method = METHODS[random.nextInt(METHODS.length)];
+        int installments = "CARD".equals(method) ? 1 + random.nextInt(12) : 1;
+        // uma parte acima de 1000 para exercitar o antifraude
+        String amount = String.format(Locale.ROOT, "%.2f", 10 + random.nextDouble(1200));
+
+        long start = System.nanoTime();
+        var resp = post("/fiadopay/gateway/payments", "Bearer " + merchant.token(), key,
+                Map.of("method", method, "currency", "BRL", "amount", amount,
+                        "installments", installments, "metadataOrderId", "load-" + key),
+                retry ? "create-retry" : "create");
+        if (resp.status == 201 && !retry) {
+            String id = resp.body.path("id").asText();
+            createdAt.putIfAbsent(id, start);
+            recentPayments.set((int) (recentCursor.getAndIncrement() % recentPayments.length()), id);
+        }
+    }
+
+    private void onWebhook(String paymentId, String status) {
+        if (!"APPROVED".equals(status) && !"DECLINED".equals(status)) {
+            return;
+        }
+        Long start = createdAt.remove(paymentId);
+        if (start != null) {
+            settleLatency.recordValue(Math.min(System.nanoTime() - start, HIGHEST_TRACKABLE_NANOS));
+        }
+    }
+
+    private String randomRecentPayment(ThreadLocalRandom random) {
+        long written = Math.min(recentCursor.get(), recentPayments.length());
+        return written == 0 ? null : recentPayments.get(random.nextInt((int) written));
+    }
+
+    // pacer global: cada requisição reserva o próximo slot da taxa alvo
+    private void pace() {
+        long slot = nextSlot.getAndAdd(intervalNanos);
+        long wait = slot - System.nanoTime();
+        if (wait > 0) {
+            LockSupport.parkNanos(wait);
+        }
+    }
+
+    private record Response(int status, JsonNode body) {}
+
+    private Response get(String path, String op) throws IOException, InterruptedException {
+        var request = HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().timeout(Duration.ofSeconds(30)).build();
+        return send(request, op);
+    }
+
+    private Response post(String path, String auth, String idempotencyKey, Map<String, ?> body, String op)
+            throws IOException, InterruptedException {
+        var builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(json.writeValueAsBytes(body)));
+        if (auth != null) builder.header("Authorization", auth);
+        if (idempotencyKey != null) builder.header("Idempotency-Key", idempotencyKey);
+        return send(builder.build(), op);
+    }
+
+    private Response send(HttpRequest request, String op) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        var response = http.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        latencies.computeIfAbsent(op, o -> new ConcurrentHistogram(HIGHEST_TRACKABLE_NANOS, 3))
+                .recordValue(Math.min(System.nanoTime() - start, HIGHEST_TRACKABLE_NANOS));
+        count(op + " " + response.statusCode());
+        byte[] raw = response.body();
+        JsonNode body = raw.length == 0 ? json.nullNode() : json.readTree(raw);
+        return new Response(response.statusCode(), body);
+    }
+
+    private void count(String key) {
+        statusCodes.computeIfAbsent(key, k -> new AtomicLong()).incrementAndGet();
+    }
+
+    private void report(long webhooksReceived) {
+        System.out.println();
+        System.out.printf("%-16s %9s %10s %10s %10s %10s%n", "operation", "count", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        latencies.forEach((op, h) -> printRow(op, h));
+        printRow("create->settled", settleLatency);
+        System.out.println();
+        System.out.println("Responses:");
+        statusCodes.forEach((k, v) -> System.out.printf("  %-24s %d%n", k, v.get()));
+        System.out.printf("Webhooks received: %d, payments never settled: %d%n", webhooksReceived, createdAt.size());
+    }
+
+    private static void printRow(String op, Histogram h) {
+        System.out.printf("%-16s %9d %10.2f %10.2f %10.2f %10.2f%n", op, h.getTotalCount(),
+                ms(h.getValueAtPercentile(50)), ms(h.getValueAtPercentile(99)),
+                ms(h.getValueAtPercentile(99.9)), ms(h.getMaxValue()));
+    }
+
+    private static double ms(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,72 @@
+package edu.ucsal.fiadopay.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * Receptor de webhooks local: responde 200 e repassa (paymentId, status) de
+ * cada evento, aceitando tanto um objeto quanto um array (merchants em lote).
+ */
+final class StubWebhookReceiver implements AutoCloseable {
+
+    static final String PATH = "/webhooks/payments";
+
+    private final HttpServer server;
+    private final ObjectMapper json = new ObjectMapper();
+    private final BiConsumer<String, String> onEvent;
+    private final LongAdder received = new LongAdder();
+
+    StubWebhookReceiver(int port, BiConsumer<String, String> onEvent) throws IOException {
+        this.onEvent = onEvent;
+        this.server = HttpServer.create(new InetSocketAddress(port), 1024);
+        this.server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        this.server.createContext(PATH, this::handle);
+    }
+
+    void start() {
+        server.start();
+    }
+
+    int port() {
+        return server.getAddress().getPort();
+    }
+
+    long received() {
+        return received.sum();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        int status = 200;
+        try (InputStream in = exchange.getRequestBody()) {
+            JsonNode body = json.readTree(in);
+            if (body.isArray()) {
+                body.forEach(this::dispatch);
+            } else {
+                dispatch(body);
+            }
+        } catch (IOException e) {
+            status = 400;
+        }
+        exchange.sendResponseHeaders(status, -1);
+        exchange.close();
+    }
+
+    private void dispatch(JsonNode event) {
+        received.increment();
+        onEvent.accept(event.path("paymentId").asText(), event.path("status").asText());
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
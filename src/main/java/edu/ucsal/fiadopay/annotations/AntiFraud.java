@@ -10,4 +10,6 @@ import java.lang.annotation.ElementType;
 public @interface AntiFraud {
     String name();
     double threshold() default 0.0;
+    /** Custo relativo de avaliação; regras mais baratas rodam primeiro. */
+    int cost() default 0;
 }
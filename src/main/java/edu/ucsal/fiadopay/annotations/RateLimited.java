@@ -0,0 +1,16 @@
+package edu.ucsal.fiadopay.annotations;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.lang.annotation.ElementType;
+
+/**
+ * Limita as requisições do merchant autenticado neste endpoint; cada nome
+ * tem o seu próprio balde por merchant.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface RateLimited {
+    String value();
+}
@@ -0,0 +1,131 @@
+package edu.ucsal.fiadopay.annotations.processing;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Gera em tempo de compilação o índice das classes anotadas com
+ * {@code @PaymentMethod}, {@code @AntiFraud}, {@code @WebhookSink} e
+ * {@code @EventHandler}, lido pelo {@code AnnotationScanner} no startup no
+ * lugar da varredura de diretórios.
+ *
+ * <p>Cada linha de {@link #INDEX} é {@code anotação<TAB>chave<TAB>classe}.
+ * Chaves repetidas para a mesma anotação viram erro de compilação, exceto
+ * em {@code @EventHandler}, em que vários handlers podem ouvir o mesmo
+ * evento. O
+ * processador é compilado antes do resto do módulo (execução
+ * {@code compile-annotation-processor} do pom) e não depende das classes
+ * das anotações: referencia-as pelo nome.
+ */
+@SupportedAnnotationTypes({
+        AnnotationIndexProcessor.PAYMENT_METHOD,
+        AnnotationIndexProcessor.ANTI_FRAUD,
+        AnnotationIndexProcessor.WEBHOOK_SINK,
+        AnnotationIndexProcessor.EVENT_HANDLER
+})
+public class AnnotationIndexProcessor extends AbstractProcessor {
+
+    public static final String INDEX = "META-INF/fiadopay/annotation.index";
+
+    static final String PAYMENT_METHOD = "edu.ucsal.fiadopay.annotations.PaymentMethod";
+    static final String ANTI_FRAUD = "edu.ucsal.fiadopay.annotations.AntiFraud";
+    static final String WEBHOOK_SINK = "edu.ucsal.fiadopay.annotations.WebhookSink";
+    static final String EVENT_HANDLER = "edu.ucsal.fiadopay.annotations.EventHandler";
+
+    // anotação → atributo usado como chave no registro
+    private static final Map<String, String> KEY_ATTRIBUTES = Map.of(
+            PAYMENT_METHOD, "type",
+            ANTI_FRAUD, "name",
+            WEBHOOK_SINK, "path",
+            EVENT_HANDLER, "event");
+
+    // ordenado para o índice sair igual a cada build
+    private final Set<String> lines = new TreeSet<>();
+    private final Map<String, String> uniqueKeys = new HashMap<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+        for (TypeElement annotation : annotations) {
+            String annotationName = annotation.getQualifiedName().toString();
+            String attribute = KEY_ATTRIBUTES.get(annotationName);
+            for (Element element : round.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() != ElementKind.CLASS) {
+                    error(element, "@" + annotation.getSimpleName() + " must annotate a class");
+                    continue;
+                }
+                String key = keyOf(element, annotationName, attribute);
+                String className = processingEnv.getElementUtils().getBinaryName((TypeElement) element).toString();
+                String entry = annotation.getSimpleName() + "\t" + key;
+                if (!EVENT_HANDLER.equals(annotationName)) {
+                    String previous = uniqueKeys.putIfAbsent(entry, className);
+                    if (previous != null && !previous.equals(className)) {
+                        error(element, "@" + annotation.getSimpleName() + " key '" + key + "' already used by " + previous);
+                        continue;
+                    }
+                }
+                lines.add(entry + "\t" + className);
+            }
+        }
+        if (round.processingOver() && !lines.isEmpty()) {
+            writeIndex();
+        }
+        return false;
+    }
+
+    private String keyOf(Element element, String annotationName, String attribute) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            TypeElement type = (TypeElement) mirror.getAnnotationType().asElement();
+            if (!type.getQualifiedName().contentEquals(annotationName)) {
+                continue;
+            }
+            Map<? extends ExecutableElement, ? extends AnnotationValue> values =
+                    processingEnv.getElementUtils().getElementValuesWithDefaults(mirror);
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> e : values.entrySet()) {
+                if (e.getKey().getSimpleName().contentEquals(attribute)) {
+                    return String.valueOf(e.getValue().getValue());
+                }
+            }
+        }
+        throw new IllegalStateException("No '" + attribute + "' on " + annotationName);
+    }
+
+    private void writeIndex() {
+        try {
+            var file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", INDEX);
+            try (Writer out = new OutputStreamWriter(file.openOutputStream(), StandardCharsets.UTF_8)) {
+                for (String line : lines) {
+                    out.write(line + "\n");
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Could not write " + INDEX + ": " + e.getMessage());
+        }
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
@@ -0,0 +1,41 @@
+package edu.ucsal.fiadopay.config;
+
+import edu.ucsal.fiadopay.core.AsyncExecutor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.stereotype.Component;
+
+/**
+ * OUT_OF_SERVICE quando alguma lane do executor passa do limite de saturação
+ * configurado (fração da capacidade). Saturação é carga, não falha: o status
+ * só vira 503 no grupo readiness (o nó deixa de receber tráfego novo até
+ * aliviar); liveness não inclui este indicador e o health geral responde 200.
+ */
+@Component("executor")
+public class ExecutorHealthIndicator implements HealthIndicator {
+
+    private final AsyncExecutor executor;
+    private final double saturationThreshold;
+
+    public ExecutorHealthIndicator(AsyncExecutor executor,
+                                   @Value("${fiadopay.health.saturation-threshold:0.95}") double saturationThreshold) {
+        this.executor = executor;
+        this.saturationThreshold = saturationThreshold;
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder builder = Health.up();
+        for (AsyncExecutor.Lane lane : AsyncExecutor.Lane.values()) {
+            int inFlight = executor.inFlight(lane);
+            int capacity = executor.capacity(lane);
+            builder.withDetail(lane.name().toLowerCase(), inFlight + "/" + capacity);
+            if (inFlight >= capacity * saturationThreshold) {
+                builder.status(Status.OUT_OF_SERVICE);
+            }
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,26 @@
+package edu.ucsal.fiadopay.config;
+
+import edu.ucsal.fiadopay.core.id.IdGenerator;
+import edu.ucsal.fiadopay.core.id.RandomIdGenerator;
+import edu.ucsal.fiadopay.core.id.SnowflakeIdGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Escolhe o gerador de IDs. Com mais de uma instância do gateway, cada uma
+ * precisa de um {@code fiadopay.id.node-id} distinto (0..1023).
+ */
+@Configuration
+public class IdGeneratorConfig {
+
+    @Bean
+    public IdGenerator idGenerator(@Value("${fiadopay.id.strategy:snowflake}") String strategy,
+                                   @Value("${fiadopay.id.node-id:0}") long nodeId) {
+        return switch (strategy.toLowerCase()) {
+            case "snowflake" -> new SnowflakeIdGenerator(nodeId);
+            case "uuid" -> new RandomIdGenerator();
+            default -> throw new IllegalArgumentException("Unknown fiadopay.id.strategy: " + strategy);
+        };
+    }
+}
@@ -0,0 +1,39 @@
+package edu.ucsal.fiadopay.config;
+
+import edu.ucsal.fiadopay.annotations.Idempotent;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Habilita o Idempotency-Key apenas nos endpoints anotados com {@link Idempotent}:
+ * o header validado é exposto como atributo da requisição.
+ */
+public class IdempotencyInterceptor implements HandlerInterceptor {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String KEY_ATTRIBUTE = "edu.ucsal.fiadopay.config.IdempotencyInterceptor.key";
+
+    private static final int MAX_KEY_LENGTH = 64;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod method)
+                || !(method.hasMethodAnnotation(Idempotent.class)
+                     || method.getBeanType().isAnnotationPresent(Idempotent.class))) {
+            return true;
+        }
+        String key = request.getHeader(HEADER);
+        if (key == null || key.isBlank()) {
+            return true;
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, HEADER + " must have at most " + MAX_KEY_LENGTH + " characters");
+        }
+        request.setAttribute(KEY_ATTRIBUTE, key);
+        return true;
+    }
+}
@@ -0,0 +1,131 @@
+package edu.ucsal.fiadopay.config;
+
+import edu.ucsal.fiadopay.core.AsyncExecutor;
+import edu.ucsal.fiadopay.core.DeliveryAuditWriter;
+import edu.ucsal.fiadopay.core.MerchantShardScheduler;
+import edu.ucsal.fiadopay.core.cache.BoundedCache;
+import edu.ucsal.fiadopay.core.cache.CacheStats;
+import edu.ucsal.fiadopay.core.events.PaymentEventBus;
+import edu.ucsal.fiadopay.core.expiry.PaymentExpiry;
+import edu.ucsal.fiadopay.core.outbox.Outbox;
+import edu.ucsal.fiadopay.core.ratelimit.RateLimiter;
+import edu.ucsal.fiadopay.service.IdempotencyIndex;
+import edu.ucsal.fiadopay.service.MerchantAuthCache;
+import edu.ucsal.fiadopay.service.PaymentReadCache;
+import edu.ucsal.fiadopay.service.PaymentStatusNotifier;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.function.Supplier;
+
+/**
+ * Gauges dos componentes internos (filas do executor, caches, buffers),
+ * publicados via Actuator em /actuator/metrics e /actuator/prometheus.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder executorMetrics(AsyncExecutor executor) {
+        return registry -> {
+            for (AsyncExecutor.Lane lane : AsyncExecutor.Lane.values()) {
+                String tag = lane.name().toLowerCase();
+                Gauge.builder("fiadopay.executor.in_flight", executor, e -> e.inFlight(lane))
+                        .tag("lane", tag).register(registry);
+                Gauge.builder("fiadopay.executor.capacity", executor, e -> e.capacity(lane))
+                        .tag("lane", tag).register(registry);
+                FunctionCounter.builder("fiadopay.executor.rejected", executor, e -> e.rejectedCount(lane))
+                        .tag("lane", tag).register(registry);
+            }
+            Gauge.builder("fiadopay.executor.scheduled", executor, AsyncExecutor::scheduledCount)
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder shardMetrics(MerchantShardScheduler shards) {
+        return registry -> {
+            for (int i = 0; i < shards.shardCount(); i++) {
+                int shard = i;
+                Gauge.builder("fiadopay.executor.shard.queued", shards, s -> s.queued(shard))
+                        .tag("shard", Integer.toString(shard)).register(registry);
+            }
+            FunctionCounter.builder("fiadopay.executor.shard.steals", shards, MerchantShardScheduler::stealCount)
+                    .register(registry);
+            FunctionCounter.builder("fiadopay.executor.shard.quota_rejected", shards,
+                    MerchantShardScheduler::quotaRejectedCount).register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder authCacheMetrics(MerchantAuthCache cache) {
+        return registry -> bindCache(registry, "merchant-auth", cache::stats);
+    }
+
+    @Bean
+    public MeterBinder paymentReadCacheMetrics(PaymentReadCache cache) {
+        return registry -> bindCache(registry, "payment-read", cache::stats);
+    }
+
+    @Bean
+    public MeterBinder webhookAuditMetrics(DeliveryAuditWriter writer) {
+        return registry -> {
+            Gauge.builder("fiadopay.webhook.audit.buffered", writer, DeliveryAuditWriter::bufferedCount)
+                    .register(registry);
+            FunctionCounter.builder("fiadopay.webhook.audit.dropped", writer, DeliveryAuditWriter::droppedCount)
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder outboxMetrics(Outbox outbox) {
+        return registry -> FunctionCounter.builder("fiadopay.outbox.reclaimed", outbox, Outbox::reclaimedCount)
+                .register(registry);
+    }
+
+    @Bean
+    public MeterBinder idempotencyMetrics(IdempotencyIndex index) {
+        return registry -> Gauge.builder("fiadopay.idempotency.entries", index, IdempotencyIndex::size)
+                .register(registry);
+    }
+
+    @Bean
+    public MeterBinder statusNotifierMetrics(PaymentStatusNotifier notifier) {
+        return registry -> Gauge.builder("fiadopay.notify.open", notifier, PaymentStatusNotifier::openCount)
+                .register(registry);
+    }
+
+    @Bean
+    public MeterBinder eventBusMetrics(PaymentEventBus bus) {
+        return registry -> Gauge.builder("fiadopay.events.lag", bus, PaymentEventBus::lag)
+                .register(registry);
+    }
+
+    @Bean
+    public MeterBinder expiryMetrics(PaymentExpiry expiry) {
+        return registry -> FunctionCounter.builder("fiadopay.expiry.expired", expiry, PaymentExpiry::expiredCount)
+                .register(registry);
+    }
+
+    @Bean
+    public MeterBinder rateLimiterMetrics(RateLimiter limiter) {
+        return registry -> Gauge.builder("fiadopay.ratelimit.buckets", limiter, RateLimiter::bucketCount)
+                .register(registry);
+    }
+
+    /** Registra os contadores de um {@link BoundedCache} sob a tag {@code cache}. */
+    static void bindCache(MeterRegistry registry, String name, Supplier<CacheStats> stats) {
+        FunctionCounter.builder("fiadopay.cache.hits", stats, s -> s.get().hits())
+                .tag("cache", name).register(registry);
+        FunctionCounter.builder("fiadopay.cache.misses", stats, s -> s.get().misses())
+                .tag("cache", name).register(registry);
+        FunctionCounter.builder("fiadopay.cache.evictions", stats, s -> s.get().evictions())
+                .tag("cache", name).register(registry);
+        Gauge.builder("fiadopay.cache.size", stats, s -> s.get().size())
+                .tag("cache", name).register(registry);
+    }
+}
@@ -0,0 +1,55 @@
+package edu.ucsal.fiadopay.config;
+
+import edu.ucsal.fiadopay.annotations.RateLimited;
+import edu.ucsal.fiadopay.core.PipelineMetrics;
+import edu.ucsal.fiadopay.core.ratelimit.RateLimitExceededException;
+import edu.ucsal.fiadopay.core.ratelimit.RateLimiter;
+import edu.ucsal.fiadopay.service.MerchantAuthCache;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Aplica o {@link RateLimiter} aos endpoints anotados com {@link RateLimited},
+ * antes de qualquer acesso ao banco ou ao executor. Requisições sem um
+ * merchant válido passam direto: quem responde 401 é o próprio endpoint.
+ */
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    private final RateLimiter limiter;
+    private final MerchantAuthCache merchants;
+    private final PipelineMetrics metrics;
+    private final int defaultPerSecond;
+
+    public RateLimitInterceptor(RateLimiter limiter, MerchantAuthCache merchants,
+                                PipelineMetrics metrics, int defaultPerSecond) {
+        this.limiter = limiter;
+        this.merchants = merchants;
+        this.metrics = metrics;
+        this.defaultPerSecond = defaultPerSecond;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod method)) {
+            return true;
+        }
+        RateLimited limited = method.getMethodAnnotation(RateLimited.class);
+        if (limited == null) {
+            return true;
+        }
+        MerchantAuthCache.Snapshot merchant = merchants.fromAuthorization(request.getHeader(HttpHeaders.AUTHORIZATION)).orElse(null);
+        if (merchant == null) {
+            return true;
+        }
+        int perSecond = merchant.rateLimitPerSecond() != null ? merchant.rateLimitPerSecond() : defaultPerSecond;
+        long retryAfter = limiter.tryAcquire(merchant.id(), limited.value(), perSecond);
+        metrics.rateLimit(limited.value(), retryAfter == 0);
+        if (retryAfter > 0) {
+            throw new RateLimitExceededException(limited.value(), retryAfter);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,40 @@
+package edu.ucsal.fiadopay.config;
+
+import edu.ucsal.fiadopay.core.PipelineMetrics;
+import edu.ucsal.fiadopay.core.ratelimit.RateLimiter;
+import edu.ucsal.fiadopay.service.MerchantAuthCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    private final RateLimiter rateLimiter;
+    private final MerchantAuthCache merchantAuthCache;
+    private final PipelineMetrics metrics;
+    private final boolean rateLimitEnabled;
+    private final int defaultPerSecond;
+
+    public WebConfig(RateLimiter rateLimiter,
+                     MerchantAuthCache merchantAuthCache,
+                     PipelineMetrics metrics,
+                     @Value("${fiadopay.rate-limit.enabled:true}") boolean rateLimitEnabled,
+                     @Value("${fiadopay.rate-limit.default-per-second:50}") int defaultPerSecond) {
+        this.rateLimiter = rateLimiter;
+        this.merchantAuthCache = merchantAuthCache;
+        this.metrics = metrics;
+        this.rateLimitEnabled = rateLimitEnabled;
+        this.defaultPerSecond = defaultPerSecond;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (rateLimitEnabled) {
+            registry.addInterceptor(new RateLimitInterceptor(rateLimiter, merchantAuthCache, metrics, defaultPerSecond))
+                    .addPathPatterns("/fiadopay/**");
+        }
+        registry.addInterceptor(new IdempotencyInterceptor()).addPathPatterns("/fiadopay/**");
+    }
+}
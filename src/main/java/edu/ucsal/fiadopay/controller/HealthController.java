@@ -1,13 +1,25 @@
 package edu.ucsal.fiadopay.controller;
 
+import edu.ucsal.fiadopay.config.ExecutorHealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
+import lombok.RequiredArgsConstructor;
 import java.util.Map;
 
 @RestController
+@RequiredArgsConstructor
 public class HealthController {
+  private final ExecutorHealthIndicator executorHealth;
+
   @GetMapping("/fiadopay/health")
-  public Map<String,String> health() {
-    return Map.of("status","UP");
+  public ResponseEntity<Map<String,String>> health() {
+    var status = executorHealth.health().getStatus();
+    // como no /actuator/health: saturação (OUT_OF_SERVICE) é carga e responde 200; só DOWN vira 503
+    boolean alive = Status.UP.equals(status) || Status.OUT_OF_SERVICE.equals(status);
+    return ResponseEntity.status(alive ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE)
+        .body(Map.of("status", status.getCode()));
   }
 }
@@ -1,7 +1,9 @@
 package edu.ucsal.fiadopay.controller;
 
+import edu.ucsal.fiadopay.core.cache.CacheStats;
 import edu.ucsal.fiadopay.domain.Merchant;
 import edu.ucsal.fiadopay.repo.MerchantRepository;
+import edu.ucsal.fiadopay.service.MerchantAuthCache;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
@@ -14,6 +16,7 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class MerchantAdminController {
   private final MerchantRepository merchants;
+  private final MerchantAuthCache authCache;
 
   @PostMapping
   public Merchant create(@Valid @RequestBody MerchantCreateDTO dto) {
@@ -29,4 +32,30 @@ public class MerchantAdminController {
         .build();
     return merchants.save(m);
   }
+
+  @PatchMapping("/{id}")
+  public Merchant update(@PathVariable Long id, @Valid @RequestBody MerchantUpdateDTO dto) {
+    var m = merchants.findById(id)
+        .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+    if (dto.name() != null && !dto.name().equals(m.getName())) {
+      if (merchants.existsByName(dto.name())) {
+        throw new ResponseStatusException(HttpStatus.CONFLICT, "Merchant name already exists");
+      }
+      m.setName(dto.name());
+    }
+    if (dto.webhookUrl() != null) m.setWebhookUrl(dto.webhookUrl());
+    if (dto.status() != null) m.setStatus(dto.status());
+    if (dto.webhookBatching() != null) m.setWebhookBatching(dto.webhookBatching());
+    if (dto.monthlyInterestRate() != null) m.setMonthlyInterestRate(dto.monthlyInterestRate());
+    if (dto.processingWeight() != null) m.setProcessingWeight(dto.processingWeight());
+    if (dto.rateLimitPerSecond() != null) m.setRateLimitPerSecond(dto.rateLimitPerSecond());
+    var saved = merchants.save(m);
+    authCache.invalidate(id);
+    return saved;
+  }
+
+  @GetMapping("/auth-cache")
+  public CacheStats authCacheStats() {
+    return authCache.stats();
+  }
 }
@@ -0,0 +1,17 @@
+package edu.ucsal.fiadopay.controller;
+
+import edu.ucsal.fiadopay.domain.Merchant;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Size;
+
+public record MerchantUpdateDTO(
+    @Size(max = 120) String name,
+    String webhookUrl,
+    Merchant.Status status,
+    Boolean webhookBatching,
+    @DecimalMin("0.0") Double monthlyInterestRate,
+    @Min(1) @Max(100) Integer processingWeight,
+    @Min(0) Integer rateLimitPerSecond
+) {}
@@ -0,0 +1,23 @@
+package edu.ucsal.fiadopay.controller;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.*;
+import java.math.BigDecimal;
+import java.util.List;
+
+public record PaymentBatchRequest(
+    @NotEmpty @Size(max = 500) List<@Valid @NotNull Item> items
+) {
+  public record Item(
+      @Size(max = 64) String idempotencyKey,
+      @NotBlank @Pattern(regexp = "(?i)CARD|PIX|DEBIT|BOLETO") String method,
+      @NotBlank String currency,
+      @NotNull @DecimalMin(value = "0.01") @Digits(integer = 17, fraction = 2) BigDecimal amount,
+      @Min(1) @Max(12) Integer installments,
+      @Size(max = 255) String metadataOrderId
+  ) {
+    public PaymentRequest toRequest() {
+      return new PaymentRequest(method, currency, amount, installments, metadataOrderId);
+    }
+  }
+}
@@ -0,0 +1,12 @@
+package edu.ucsal.fiadopay.controller;
+
+import java.util.List;
+
+public record PaymentBatchResponse(
+    int created,
+    int duplicates,
+    List<Item> items
+) {
+  /** Resultado por item, na mesma ordem do request; duplicate=true quando a Idempotency-Key já existia. */
+  public record Item(int index, String idempotencyKey, boolean duplicate, PaymentResponse payment) {}
+}
@@ -1,11 +1,21 @@
 package edu.ucsal.fiadopay.controller;
 
+import edu.ucsal.fiadopay.annotations.Idempotent;
+import edu.ucsal.fiadopay.annotations.RateLimited;
+import edu.ucsal.fiadopay.config.IdempotencyInterceptor;
+import edu.ucsal.fiadopay.core.ExecutorSaturatedException;
+import edu.ucsal.fiadopay.core.ratelimit.RateLimitExceededException;
+import edu.ucsal.fiadopay.domain.Payment;
 import edu.ucsal.fiadopay.service.PaymentService;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import lombok.RequiredArgsConstructor;
 import jakarta.validation.Valid;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.enums.ParameterIn;
+import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 
 @RestController
@@ -15,25 +25,80 @@ public class PaymentController {
   private final PaymentService service;
 
   @PostMapping("/payments")
+  @Idempotent
+  @RateLimited("payments.create")
   @SecurityRequirement(name = "bearerAuth")
+  @Parameter(in = ParameterIn.HEADER, name = IdempotencyInterceptor.HEADER, schema = @Schema(type = "string", maxLength = 64))
   public ResponseEntity<PaymentResponse> create(
       @Parameter(hidden = true) @RequestHeader("Authorization") String auth,
-      @RequestHeader(value="Idempotency-Key", required=false) String idemKey,
+      @Parameter(hidden = true) @RequestAttribute(name = IdempotencyInterceptor.KEY_ATTRIBUTE, required = false) String idemKey,
       @RequestBody @Valid PaymentRequest req
   ) {
     var resp = service.createPayment(auth, idemKey, req);
     return ResponseEntity.status(HttpStatus.CREATED).body(resp);
   }
 
+  @PostMapping("/payments/batch")
+  @RateLimited("payments.batch")
+  @SecurityRequirement(name = "bearerAuth")
+  public ResponseEntity<PaymentBatchResponse> createBatch(
+      @Parameter(hidden = true) @RequestHeader("Authorization") String auth,
+      @RequestBody @Valid PaymentBatchRequest req
+  ) {
+    var resp = service.createBatch(auth, req);
+    return ResponseEntity.status(HttpStatus.CREATED).body(resp);
+  }
+
+  @GetMapping("/payments")
+  @RateLimited("payments.list")
+  @SecurityRequirement(name = "bearerAuth")
+  public PaymentPage list(@Parameter(hidden = true) @RequestHeader("Authorization") String auth,
+                          @RequestParam(required = false) Payment.Status status,
+                          @RequestParam(required = false) java.time.Instant from,
+                          @RequestParam(required = false) java.time.Instant to,
+                          @RequestParam(required = false) String cursor,
+                          @RequestParam(defaultValue = "100") int limit) {
+    return service.listPayments(auth, status, from, to, cursor, limit);
+  }
+
   @GetMapping("/payments/{id}")
   public PaymentResponse get(@PathVariable String id) {
     return service.getPayment(id);
   }
 
+  @GetMapping("/payments/{id}/await")
+  public DeferredResult<PaymentResponse> await(@PathVariable String id,
+                                               @RequestParam(defaultValue = "30000") long timeoutMs) {
+    return service.awaitPayment(id, timeoutMs);
+  }
+
+  @GetMapping(path = "/payments/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  @RateLimited("payments.stream")
+  @SecurityRequirement(name = "bearerAuth")
+  public SseEmitter stream(@Parameter(hidden = true) @RequestHeader("Authorization") String auth) {
+    return service.subscribe(auth);
+  }
+
   @PostMapping("/refunds")
+  @RateLimited("refunds")
   @SecurityRequirement(name = "bearerAuth")
   public java.util.Map<String,Object> refund(@Parameter(hidden = true) @RequestHeader("Authorization") String auth,
                                    @RequestBody @Valid RefundRequest body) {
     return service.refund(auth, body.paymentId());
   }
+
+  @ExceptionHandler(ExecutorSaturatedException.class)
+  public ResponseEntity<java.util.Map<String,Object>> saturated(ExecutorSaturatedException ex) {
+    var status = ex.isShuttingDown() ? HttpStatus.SERVICE_UNAVAILABLE : HttpStatus.TOO_MANY_REQUESTS;
+    return ResponseEntity.status(status)
+        .header(HttpHeaders.RETRY_AFTER, "1")
+        .body(java.util.Map.of("error", status.getReasonPhrase(), "message", ex.getMessage()));
+  }
+
+  @ExceptionHandler(RateLimitExceededException.class)
+  public ResponseEntity<java.util.Map<String,Object>> rateLimited(RateLimitExceededException ex) {
+    return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+        .header(HttpHeaders.RETRY_AFTER, Long.toString(ex.getRetryAfterSeconds()))
+        .body(java.util.Map.of("error", HttpStatus.TOO_MANY_REQUESTS.getReasonPhrase(), "message", ex.getMessage()));
+  }
 }
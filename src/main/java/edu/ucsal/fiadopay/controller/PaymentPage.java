@@ -0,0 +1,6 @@
+package edu.ucsal.fiadopay.controller;
+
+import java.util.List;
+
+/** Página da listagem; nextCursor é null na última página. */
+public record PaymentPage(List<PaymentSummary> items, String nextCursor) {}
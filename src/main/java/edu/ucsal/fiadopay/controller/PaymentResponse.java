@@ -1,3 +1,13 @@
 package edu.ucsal.fiadopay.controller;
+import edu.ucsal.fiadopay.domain.Payment;
 import java.math.BigDecimal;
-public record PaymentResponse(String id, String status, String method, BigDecimal amount, Integer installments, Double interestRate, BigDecimal total) {}
+import java.time.Instant;
+public record PaymentResponse(String id, String status, String method, BigDecimal amount, Integer installments, Double interestRate, BigDecimal total, Instant expiresAt) {
+  public static PaymentResponse of(Payment p) {
+    return new PaymentResponse(
+        p.getId(), p.getStatus().name(), p.getMethod(),
+        p.getAmount(), p.getInstallments(), p.getMonthlyInterest(),
+        p.getTotalWithInterest(), p.getExpiresAt()
+    );
+  }
+}
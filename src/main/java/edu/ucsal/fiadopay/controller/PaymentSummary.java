@@ -0,0 +1,20 @@
+package edu.ucsal.fiadopay.controller;
+
+import edu.ucsal.fiadopay.domain.Payment;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/** Linha da listagem de pagamentos, montada direto na consulta (sem carregar a entidade). */
+public record PaymentSummary(
+    String id,
+    Payment.Status status,
+    String method,
+    BigDecimal amount,
+    String currency,
+    Integer installments,
+    BigDecimal total,
+    String metadataOrderId,
+    Instant createdAt,
+    Instant updatedAt
+) {}
@@ -1,20 +1,102 @@
 package edu.ucsal.fiadopay.core;
 import edu.ucsal.fiadopay.annotations.*;
+import edu.ucsal.fiadopay.annotations.processing.AnnotationIndexProcessor;
 import org.springframework.stereotype.Component;
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registro das classes com {@link PaymentMethod}, {@link AntiFraud},
+ * {@link WebhookSink} e {@link EventHandler}. O bean é preenchido no
+ * construtor a partir do índice gerado na compilação pelo
+ * {@link AnnotationIndexProcessor}: só as classes listadas são carregadas,
+ * sem percorrer o classpath, e funciona igual dentro do fat JAR.
+ */
 @Component
 public class AnnotationScanner {
 
+    private static final String BASE_PACKAGE = "edu.ucsal.fiadopay";
+
     private final Map<String, Class<?>> paymentMethods = new ConcurrentHashMap<>();
     private final Map<String, Class<?>> AntiFraund = new ConcurrentHashMap<>();
     private final Map<String, Class<?>> webhooks = new ConcurrentHashMap<>();
+    private final Map<String, List<Class<?>>> eventHandlers = new ConcurrentHashMap<>();
+
+    public AnnotationScanner() {
+        long start = System.nanoTime();
+        if (!loadIndex(AnnotationScanner.class.getClassLoader())) {
+            // ex.: IDE compilando sem annotation processing
+            System.err.println("[SCAN] " + AnnotationIndexProcessor.INDEX + " not found, falling back to classpath scan");
+            scan(BASE_PACKAGE);
+        }
+        System.out.println("[SCAN] Annotation registry loaded in "
+                + TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start) + " us");
+        logResults();
+    }
+
+    private AnnotationScanner(String basePackage) {
+        scan(basePackage);
+    }
+
+    /** Varredura antiga de diretórios, sem índice; mantida para o benchmark de startup. */
+    public static AnnotationScanner scanClasspath(String basePackage) {
+        return new AnnotationScanner(basePackage);
+    }
+
+    private boolean loadIndex(ClassLoader loader) {
+        boolean found = false;
+        try {
+            // um índice por raiz do classpath (ex.: classes e test-classes)
+            Enumeration<URL> indexes = loader.getResources(AnnotationIndexProcessor.INDEX);
+            while (indexes.hasMoreElements()) {
+                found = true;
+                try (var in = new BufferedReader(new InputStreamReader(indexes.nextElement().openStream(), StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = in.readLine()) != null) {
+                        if (!line.isBlank()) {
+                            register(line, loader);
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("[SCAN] Could not read " + AnnotationIndexProcessor.INDEX + ": " + e.getMessage());
+        }
+        return found;
+    }
+
+    private void register(String line, ClassLoader loader) {
+        String[] fields = line.split("\t", 3);
+        if (fields.length != 3) {
+            System.err.println("[SCAN] Ignoring malformed index line: " + line);
+            return;
+        }
+        Class<?> clazz;
+        try {
+            clazz = Class.forName(fields[2], false, loader);
+        } catch (ClassNotFoundException e) {
+            System.err.println("[SCAN] Indexed class not found: " + fields[2]);
+            return;
+        }
+        switch (fields[0]) {
+            case "PaymentMethod" -> paymentMethods.put(fields[1], clazz);
+            case "AntiFraud" -> AntiFraund.put(fields[1], clazz);
+            case "WebhookSink" -> webhooks.put(fields[1], clazz);
+            case "EventHandler" -> addEventHandler(fields[1], clazz);
+            default -> System.err.println("[SCAN] Unknown annotation in index: " + fields[0]);
+        }
+    }
 
-    public void scan(String basePackage) {
+    private void scan(String basePackage) {
         try {
             String path = basePackage.replace('.', '/');
             Enumeration<URL> resources = Thread.currentThread()
@@ -46,7 +128,7 @@ public class AnnotationScanner {
                 try {
                     Class<?> clazz = Class.forName(className);
                     registerIfAnnotated(clazz);
-                } catch (ClassNotFoundException ignored) {}
+                } catch (ClassNotFoundException | LinkageError ignored) {}
             }
         }
     }
@@ -66,6 +148,16 @@ public class AnnotationScanner {
             WebhookSink annotation = clazz.getAnnotation(WebhookSink.class);
             webhooks.put(annotation.path(), clazz);
         }
+
+        if (clazz.isAnnotationPresent(EventHandler.class)) {
+            EventHandler annotation = clazz.getAnnotation(EventHandler.class);
+            addEventHandler(annotation.event(), clazz);
+        }
+    }
+
+    // vários handlers podem ouvir o mesmo evento
+    private void addEventHandler(String event, Class<?> clazz) {
+        eventHandlers.computeIfAbsent(event, e -> new CopyOnWriteArrayList<>()).add(clazz);
     }
 
     // Getters
@@ -81,14 +173,19 @@ public class AnnotationScanner {
         return webhooks;
     }
 
+    public Map<String, List<Class<?>>> getEventHandlers() {
+        return eventHandlers;
+    }
+
     public void logResults() {
         System.out.println("=== Annotation Scanner Results ===");
 
         System.out.println("Payment Methods found: " + paymentMethods.keySet());
         System.out.println("AntiFraud Rules found: " + AntiFraund.keySet());
         System.out.println("Webhooks found: " + webhooks.keySet());
+        System.out.println("Event Handlers found: " + eventHandlers.keySet());
 
         System.out.println("=== End of Annotation Scan ===");
     }
 
-}
\ No newline at end of file
+}
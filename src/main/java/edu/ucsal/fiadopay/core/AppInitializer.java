@@ -1,11 +0,0 @@
-package edu.ucsal.fiadopay.core;
-
-public class AppInitializer {
-
-    public static void initialize() {
-        AnnotationScanner scanner = new AnnotationScanner();
-        scanner.scan("edu.ucsal.fiadopay");
-        scanner.logResults();
-    }
-
-}
\ No newline at end of file
@@ -1,61 +1,369 @@
 package edu.ucsal.fiadopay.core;
 
 import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.util.EnumMap;
+import java.util.Map;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
+/**
+ * Motor de execução assíncrona: uma virtual thread por tarefa, com admissão
+ * limitada por lane (pagamentos e webhooks) e política de overflow configurável.
+ * Tarefas com chave de partição (merchantId) vão para o
+ * {@link MerchantShardScheduler} em vez de uma virtual thread própria.
+ */
 @Component
 public class AsyncExecutor {
 
-    private final BlockingQueue<Runnable> queue = new LinkedBlockingQueue<>();
-    private final ExecutorService workerPool;
-    private final Thread dispatcher;
+    public enum Lane { PAYMENT, WEBHOOK }
 
-    public AsyncExecutor() {
-        // pool size can be tuned later
-        this.workerPool = Executors.newFixedThreadPool(4);
-        this.dispatcher = new Thread(this::dispatchLoop, "async-executor-dispatcher");
-        this.dispatcher.setDaemon(true);
-        this.dispatcher.start();
+    /**
+     * REJECT lança {@link ExecutorSaturatedException}, CALLER_RUNS executa na
+     * thread chamadora e SHED descarta a tarefa. SHED só é aceito na lane
+     * WEBHOOK, em que a entrega descartada continua no outbox.
+     */
+    public enum OverflowPolicy { REJECT, CALLER_RUNS, SHED }
+
+    private final Map<Lane, LaneState> lanes = new EnumMap<>(Lane.class);
+    private final ScheduledThreadPoolExecutor timer;
+    private final MerchantShardScheduler shards;
+    private final long drainTimeoutMs;
+    private volatile boolean accepting = true;
+
+    public AsyncExecutor(@Value("${fiadopay.executor.payment.max-in-flight:10000}") int paymentLimit,
+                         @Value("${fiadopay.executor.payment.policy:REJECT}") OverflowPolicy paymentPolicy,
+                         @Value("${fiadopay.executor.webhook.max-in-flight:1000}") int webhookLimit,
+                         @Value("${fiadopay.executor.webhook.policy:SHED}") OverflowPolicy webhookPolicy,
+                         @Value("${fiadopay.executor.drain-timeout-ms:10000}") long drainTimeoutMs,
+                         MerchantShardScheduler shards) {
+        if (paymentPolicy == OverflowPolicy.SHED) {
+            // nada garante que o chamador da lane de pagamentos tenha outbox: descartar perderia o pagamento
+            throw new IllegalArgumentException("fiadopay.executor.payment.policy must be REJECT or CALLER_RUNS, SHED is only allowed for webhooks");
+        }
+        this.lanes.put(Lane.PAYMENT, new LaneState(Lane.PAYMENT, paymentLimit, paymentPolicy));
+        this.lanes.put(Lane.WEBHOOK, new LaneState(Lane.WEBHOOK, webhookLimit, webhookPolicy));
+        this.drainTimeoutMs = drainTimeoutMs;
+        this.shards = shards;
+        // o timer só repassa a tarefa para a lane no vencimento; nenhuma worker fica presa na espera
+        this.timer = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "async-executor-timer");
+            t.setDaemon(true);
+            return t;
+        });
+        this.timer.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Submete a tarefa na lane indicada. Retorna false quando a tarefa foi
+     * descartada pela política SHED.
+     */
+    public boolean enqueue(Lane lane, Runnable task) {
+        if (!accepting) {
+            throw new ExecutorSaturatedException(lane, true);
+        }
+        LaneState state = lanes.get(lane);
+        if (!state.permits.tryAcquire()) {
+            return overflow(state, task);
+        }
+        dispatch(state, task);
+        return true;
     }
 
-    private void dispatchLoop() {
+    /**
+     * Como {@link #enqueue}, para tarefas que terminam de forma assíncrona (I/O
+     * não bloqueante): a vaga só volta quando o estágio devolvido pela tarefa
+     * completa, então o limite da lane conta o trabalho ainda em andamento.
+     */
+    public boolean enqueueAsync(Lane lane, Supplier<? extends CompletionStage<?>> task) {
+        if (!accepting) {
+            throw new ExecutorSaturatedException(lane, true);
+        }
+        LaneState state = lanes.get(lane);
+        if (!state.permits.tryAcquire()) {
+            return overflow(state, task::get);
+        }
         try {
-            while (!Thread.currentThread().isInterrupted()) {
-                Runnable task = queue.take(); // blocks until task available
+            state.executor.execute(() -> {
+                CompletionStage<?> stage;
                 try {
-                    workerPool.submit(task);
-                } catch (RejectedExecutionException rex) {
-                    // fallback: re-enqueue or log
-                    System.err.println("Task rejected by worker pool: " + rex.getMessage());
+                    stage = task.get();
+                } catch (RuntimeException | Error e) {
+                    state.permits.release();
+                    throw e;
+                }
+                if (stage == null) {
+                    state.permits.release();
+                } else {
+                    stage.whenComplete((result, error) -> state.permits.release());
                 }
+            });
+        } catch (RejectedExecutionException rex) {
+            state.permits.release();
+            throw new ExecutorSaturatedException(state.lane, true);
+        }
+        return true;
+    }
+
+    /**
+     * Agenda a tarefa para rodar na lane após {@code delayMs}. A vaga na lane é
+     * reservada já no agendamento, então a espera conta para o limite de
+     * admissão mas não ocupa thread alguma.
+     */
+    public boolean schedule(Lane lane, Runnable task, long delayMs) {
+        if (delayMs <= 0) {
+            return enqueue(lane, task);
+        }
+        if (!accepting) {
+            throw new ExecutorSaturatedException(lane, true);
+        }
+        LaneState state = lanes.get(lane);
+        if (!state.permits.tryAcquire()) {
+            return overflow(state, task);
+        }
+        try {
+            timer.schedule(() -> dispatch(state, task), delayMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException rex) {
+            state.permits.release();
+            throw new ExecutorSaturatedException(lane, true);
+        }
+        return true;
+    }
+
+    /**
+     * Agenda sem reservar vaga: a lane só é ocupada quando o atraso vence, e
+     * a política de overflow é aplicada nesse momento. Serve para esperas
+     * longas (backoff de retentativas) que não devem segurar o limite da lane.
+     * A tarefa roda como em {@link #enqueueAsync}; {@code onRejected} é chamado
+     * se a lane recusar a tarefa no vencimento.
+     */
+    public void scheduleDeferred(Lane lane, Supplier<? extends CompletionStage<?>> task, long delayMs,
+                                 Runnable onRejected) {
+        if (!accepting) {
+            throw new ExecutorSaturatedException(lane, true);
+        }
+        Runnable fire = () -> {
+            boolean accepted;
+            try {
+                accepted = enqueueAsync(lane, task);
+            } catch (ExecutorSaturatedException e) {
+                accepted = false;
             }
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
+            if (!accepted) {
+                onRejected.run();
+            }
+        };
+        try {
+            timer.schedule(fire, Math.max(delayMs, 0), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException rex) {
+            throw new ExecutorSaturatedException(lane, true);
         }
     }
 
+    /**
+     * Checagem de admissão sem reservar vaga, para quem agenda só depois de um
+     * commit: lança {@link ExecutorSaturatedException} quando a lane está
+     * cheia com a política REJECT ou o executor está encerrando.
+     */
+    public void admit(Lane lane) {
+        if (!accepting) {
+            throw new ExecutorSaturatedException(lane, true);
+        }
+        LaneState state = lanes.get(lane);
+        if (state.policy == OverflowPolicy.REJECT && state.permits.availablePermits() == 0) {
+            state.rejected.incrementAndGet();
+            throw new ExecutorSaturatedException(lane, false);
+        }
+    }
+
+    /**
+     * Como {@link #schedule(Lane, Runnable, long)}, mas a tarefa roda no shard
+     * do merchant: ordem preservada por merchant e cota de pendências por
+     * merchant além do limite da lane. Aqui CALLER_RUNS vale como REJECT:
+     * rodar na thread chamadora furaria a fila e a cota do merchant.
+     */
+    public boolean schedule(Lane lane, long merchantId, Runnable task, long delayMs) {
+        if (!accepting) {
+            throw new ExecutorSaturatedException(lane, true);
+        }
+        LaneState state = lanes.get(lane);
+        if (!state.permits.tryAcquire()) {
+            return overflowPartitioned(state, task);
+        }
+        if (!shards.tryReserve(merchantId)) {
+            state.permits.release();
+            return overflowPartitioned(state, task);
+        }
+        int weight;
+        try {
+            // resolvido aqui: no timer, um miss do cache serializaria todas as tarefas atrás do JDBC
+            weight = shards.weightOf(merchantId);
+        } catch (RuntimeException e) {
+            shards.unreserve(merchantId);
+            state.permits.release();
+            throw e;
+        }
+        Runnable partitioned = () -> shards.submit(merchantId, weight, () -> {
+            try {
+                task.run();
+            } finally {
+                state.permits.release();
+            }
+        });
+        if (delayMs <= 0) {
+            partitioned.run();
+            return true;
+        }
+        try {
+            timer.schedule(partitioned, delayMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException rex) {
+            shards.unreserve(merchantId);
+            state.permits.release();
+            throw new ExecutorSaturatedException(lane, true);
+        }
+        return true;
+    }
 
-    public boolean enqueue(Runnable task) {
-        return queue.offer(task);
+    public void admit(Lane lane, long merchantId) {
+        admit(lane, merchantId, 1);
+    }
+
+    /**
+     * Admissão de {@code count} tarefas do merchant de uma vez (lotes): cada
+     * uma vai ocupar a sua vaga na lane e na cota do merchant.
+     */
+    public void admit(Lane lane, long merchantId, int count) {
+        if (!accepting) {
+            throw new ExecutorSaturatedException(lane, true);
+        }
+        LaneState state = lanes.get(lane);
+        if (state.policy == OverflowPolicy.REJECT
+                && (state.permits.availablePermits() < count || !shards.hasQuota(merchantId, count))) {
+            state.rejected.incrementAndGet();
+            throw new ExecutorSaturatedException(lane, false);
+        }
+    }
+
+    private boolean overflowPartitioned(LaneState state, Runnable task) {
+        if (state.policy == OverflowPolicy.CALLER_RUNS) {
+            state.rejected.incrementAndGet();
+            throw new ExecutorSaturatedException(state.lane, false);
+        }
+        return overflow(state, task);
+    }
+
+    private void dispatch(LaneState state, Runnable task) {
+        try {
+            state.executor.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    state.permits.release();
+                }
+            });
+        } catch (RejectedExecutionException rex) {
+            state.permits.release();
+            throw new ExecutorSaturatedException(state.lane, true);
+        }
+    }
+
+    private boolean overflow(LaneState state, Runnable task) {
+        state.rejected.incrementAndGet();
+        switch (state.policy) {
+            case CALLER_RUNS -> {
+                task.run();
+                return true;
+            }
+            case SHED -> {
+                System.err.println("[EXECUTOR] Lane " + state.lane + " saturated, task shed.");
+                return false;
+            }
+            default -> throw new ExecutorSaturatedException(state.lane, false);
+        }
+    }
+
+    public int inFlight(Lane lane) {
+        LaneState state = lanes.get(lane);
+        return state.limit - state.permits.availablePermits();
+    }
+
+    public int capacity(Lane lane) {
+        return lanes.get(lane).limit;
+    }
+
+    public long rejectedCount(Lane lane) {
+        return lanes.get(lane).rejected.get();
+    }
+
+    public int scheduledCount() {
+        return timer.getQueue().size();
     }
 
     public int queueSize() {
-        return queue.size();
+        int total = 0;
+        for (Lane lane : Lane.values()) {
+            total += inFlight(lane);
+        }
+        return total;
     }
 
     @PreDestroy
     public void shutdown() {
-        dispatcher.interrupt();
-        workerPool.shutdown();
+        accepting = false;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(drainTimeoutMs);
+        // tarefas agendadas ainda disparam após o shutdown; drenar o timer antes das lanes
+        timer.shutdown();
         try {
-            if (!workerPool.awaitTermination(5, TimeUnit.SECONDS)) {
-                workerPool.shutdownNow();
+            if (!timer.awaitTermination(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS)) {
+                System.err.println("[EXECUTOR] Timer did not drain in time, "
+                        + timer.shutdownNow().size() + " delayed tasks dropped.");
             }
         } catch (InterruptedException e) {
-            workerPool.shutdownNow();
+            timer.shutdownNow();
             Thread.currentThread().interrupt();
         }
+        try {
+            if (!shards.awaitDrained(deadline)) {
+                System.err.println("[EXECUTOR] Merchant shards did not drain in time.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (LaneState state : lanes.values()) {
+            state.executor.shutdown();
+        }
+        for (LaneState state : lanes.values()) {
+            try {
+                long remaining = deadline - System.nanoTime();
+                if (!state.executor.awaitTermination(Math.max(remaining, 0), TimeUnit.NANOSECONDS)) {
+                    System.err.println("[EXECUTOR] Lane " + state.lane + " did not drain in time, "
+                            + state.executor.shutdownNow().size() + " tasks dropped.");
+                }
+            } catch (InterruptedException e) {
+                state.executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static final class LaneState {
+        final Lane lane;
+        final int limit;
+        final OverflowPolicy policy;
+        final Semaphore permits;
+        final ExecutorService executor;
+        final AtomicLong rejected = new AtomicLong();
+
+        LaneState(Lane lane, int limit, OverflowPolicy policy) {
+            this.lane = lane;
+            this.limit = limit;
+            this.policy = policy;
+            this.permits = new Semaphore(limit);
+            this.executor = Executors.newThreadPerTaskExecutor(
+                    Thread.ofVirtual().name(lane.name().toLowerCase() + "-", 0).factory());
+        }
     }
 }
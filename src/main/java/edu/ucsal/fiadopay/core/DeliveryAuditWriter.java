@@ -0,0 +1,116 @@
+package edu.ucsal.fiadopay.core;
+
+import edu.ucsal.fiadopay.domain.WebhookDelivery;
+import edu.ucsal.fiadopay.repo.WebhookDeliveryRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind dos registros de auditoria de webhook: acumula em memória e
+ * grava em batch JDBC, por tamanho (na thread que completou o lote) ou por
+ * tempo (tarefa agendada). No encerramento grava o que restou no buffer.
+ */
+@Component
+public class DeliveryAuditWriter {
+
+    private final WebhookDeliveryRepository deliveries;
+    private final TransactionTemplate tx;
+    private final int batchSize;
+    private final int maxBuffered;
+
+    private final ConcurrentLinkedQueue<WebhookDelivery> buffer = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger buffered = new AtomicInteger();
+    private final AtomicLong dropped = new AtomicLong();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private volatile boolean closed;
+
+    public DeliveryAuditWriter(WebhookDeliveryRepository deliveries,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${fiadopay.webhook.audit.batch-size:50}") int batchSize,
+                               @Value("${fiadopay.webhook.audit.max-buffered:10000}") int maxBuffered) {
+        this.deliveries = deliveries;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxBuffered = maxBuffered;
+    }
+
+    public void record(WebhookDelivery delivery) {
+        if (closed) {
+            deliveries.save(delivery);
+            return;
+        }
+        if (buffered.get() >= maxBuffered) {
+            dropped.incrementAndGet();
+            System.err.println("[AUDIT] Buffer full, delivery record for " + delivery.getPaymentId() + " dropped.");
+            return;
+        }
+        buffer.add(delivery);
+        if (buffered.incrementAndGet() >= batchSize) {
+            flush(false);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${fiadopay.webhook.audit.flush-interval-ms:500}")
+    public void flushPending() {
+        flush(false);
+    }
+
+    public int bufferedCount() {
+        return buffered.get();
+    }
+
+    public long droppedCount() {
+        return dropped.get();
+    }
+
+    @PreDestroy
+    public void close() {
+        closed = true;
+        flush(true);
+    }
+
+    private void flush(boolean wait) {
+        if (wait) {
+            flushLock.lock();
+        } else if (!flushLock.tryLock()) {
+            return; // outro flush já está em andamento
+        }
+        try {
+            List<WebhookDelivery> batch = new ArrayList<>(batchSize);
+            WebhookDelivery next;
+            while ((next = buffer.poll()) != null) {
+                buffered.decrementAndGet();
+                batch.add(next);
+                if (batch.size() == batchSize) {
+                    write(batch);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void write(List<WebhookDelivery> batch) {
+        try {
+            tx.executeWithoutResult(status -> deliveries.saveAll(batch));
+        } catch (Exception e) {
+            dropped.addAndGet(batch.size());
+            System.err.println("[AUDIT] Failed to write " + batch.size() + " delivery records: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package edu.ucsal.fiadopay.core;
+
+/**
+ * Lançada quando uma lane do {@link AsyncExecutor} não admite mais tarefas.
+ * {@code shuttingDown} diferencia o encerramento (503) da saturação (429).
+ */
+public class ExecutorSaturatedException extends RuntimeException {
+
+    private final AsyncExecutor.Lane lane;
+    private final boolean shuttingDown;
+
+    public ExecutorSaturatedException(AsyncExecutor.Lane lane, boolean shuttingDown) {
+        super(shuttingDown
+                ? "Executor lane " + lane + " is shutting down"
+                : "Executor lane " + lane + " is saturated");
+        this.lane = lane;
+        this.shuttingDown = shuttingDown;
+    }
+
+    public AsyncExecutor.Lane getLane() { return lane; }
+
+    public boolean isShuttingDown() { return shuttingDown; }
+}
@@ -0,0 +1,355 @@
+package edu.ucsal.fiadopay.core;
+
+import edu.ucsal.fiadopay.service.MerchantAuthCache;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Executa o trabalho da lane PAYMENT particionado por merchant.
+ *
+ * <ul>
+ *   <li>Cada merchant cai, por hash, em um shard com uma única thread
+ *       consumidora: as tarefas de um merchant rodam uma de cada vez, na
+ *       ordem de chegada.</li>
+ *   <li>Dentro do shard, os merchants com fila são atendidos por Deficit
+ *       Round Robin: a cada rodada um merchant executa até {@code peso}
+ *       tarefas ({@code Merchant.processingWeight}, padrão 1), então uma
+ *       rajada de um merchant não atrasa os demais. O peso é relido a cada
+ *       rodada, então um PATCH vale para a fila que já existe.</li>
+ *   <li>Cada merchant tem uma cota de tarefas pendentes (incluindo as que
+ *       aguardam o processing-delay), verificada na admissão.</li>
+ *   <li>Um shard ocioso rouba a fila inteira de um merchant (que não esteja
+ *       executando) do shard mais carregado. O roubo é registrado em
+ *       {@code owner}, então novas tarefas do merchant seguem a fila até ela
+ *       esvaziar, preservando a ordem.</li>
+ * </ul>
+ */
+@Component
+public class MerchantShardScheduler {
+
+    private final Shard[] shards;
+    private final int quota;
+    private final long idleStealMs;
+    private final MerchantAuthCache merchants;
+
+    // merchants cuja fila foi roubada: sobrepõe o shard do hash até a fila esvaziar
+    private final ConcurrentHashMap<Long, Shard> owner = new ConcurrentHashMap<>();
+    // reserva e devolução no compute da mesma entrada: a chave só some quando chega a zero
+    private final ConcurrentHashMap<Long, Integer> pending = new ConcurrentHashMap<>();
+    private final AtomicLong steals = new AtomicLong();
+    private final AtomicLong quotaRejections = new AtomicLong();
+    private volatile boolean running = true;
+
+    public MerchantShardScheduler(MerchantAuthCache merchants,
+                                  @Value("${fiadopay.executor.payment.shards:0}") int shardCount,
+                                  @Value("${fiadopay.executor.payment.merchant-quota:1000}") int quota,
+                                  @Value("${fiadopay.executor.payment.idle-steal-ms:50}") long idleStealMs) {
+        this.merchants = merchants;
+        this.quota = quota;
+        this.idleStealMs = idleStealMs;
+        int n = shardCount > 0 ? shardCount : Runtime.getRuntime().availableProcessors();
+        this.shards = new Shard[n];
+        for (int i = 0; i < n; i++) {
+            shards[i] = new Shard(i);
+        }
+        for (Shard shard : shards) {
+            Thread.ofVirtual().name("payment-shard-" + shard.index).start(shard::consume);
+        }
+    }
+
+    /**
+     * Reserva uma vaga na cota do merchant; false quando ela já está cheia.
+     * Toda reserva bem-sucedida deve terminar em {@link #submit} ou {@link #unreserve}.
+     */
+    public boolean tryReserve(long merchantId) {
+        boolean[] reserved = {false};
+        pending.compute(merchantId, (k, count) -> {
+            int current = count == null ? 0 : count;
+            if (current >= quota) {
+                return count;
+            }
+            reserved[0] = true;
+            return current + 1;
+        });
+        if (!reserved[0]) {
+            quotaRejections.incrementAndGet();
+        }
+        return reserved[0];
+    }
+
+    public boolean hasQuota(long merchantId, int count) {
+        return pending.getOrDefault(merchantId, 0) + count <= quota;
+    }
+
+    public void unreserve(long merchantId) {
+        pending.computeIfPresent(merchantId, (k, count) -> count <= 1 ? null : count - 1);
+    }
+
+    /**
+     * Enfileira uma tarefa já reservada; a vaga é devolvida quando ela termina.
+     * O {@code weight} vem de {@link #weightOf}, resolvido por quem agenda, e
+     * atualiza o peso da fila do merchant.
+     */
+    public void submit(long merchantId, int weight, Runnable task) {
+        while (true) {
+            Shard shard = route(merchantId);
+            shard.lock.lock();
+            try {
+                // o roubo troca o dono segurando o lock da origem: confere de novo
+                if (route(merchantId) != shard) {
+                    continue;
+                }
+                shard.enqueue(merchantId, weight, task);
+                return;
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+    }
+
+    public int shardCount() {
+        return shards.length;
+    }
+
+    public int queued(int shard) {
+        return shards[shard].queued;
+    }
+
+    public long stealCount() {
+        return steals.get();
+    }
+
+    public long quotaRejectedCount() {
+        return quotaRejections.get();
+    }
+
+    /** Aguarda as filas esvaziarem até o prazo; usado no shutdown do AsyncExecutor. */
+    boolean awaitDrained(long deadlineNanos) throws InterruptedException {
+        // roubos movem filas entre shards: só termina com uma volta inteira ociosa
+        while (true) {
+            boolean idle = true;
+            for (Shard shard : shards) {
+                idle &= shard.queued == 0 && !shard.busy;
+            }
+            if (idle) {
+                return true;
+            }
+            if (System.nanoTime() >= deadlineNanos) {
+                return false;
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        for (Shard shard : shards) {
+            shard.lock.lock();
+            try {
+                shard.notEmpty.signalAll();
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+    }
+
+    private Shard route(long merchantId) {
+        Shard stolenBy = owner.get(merchantId);
+        if (stolenBy != null) {
+            return stolenBy;
+        }
+        // mistura os bits para ids sequenciais não caírem todos em sequência nos shards
+        long h = merchantId * 0x9E3779B97F4A7C15L;
+        return shards[(int) Math.floorMod(h ^ (h >>> 32), (long) shards.length)];
+    }
+
+    /**
+     * Peso DRR do merchant. Pode ir ao banco num miss do cache, então é
+     * chamado por quem agenda, nunca no timer nem com o lock de um shard.
+     */
+    public int weightOf(long merchantId) {
+        return merchants.find(merchantId)
+                .map(MerchantAuthCache.Snapshot::processingWeight)
+                .filter(w -> w != null && w > 0)
+                .orElse(1);
+    }
+
+    // só o que já está no cache: roda com o lock do shard, então nunca vai ao banco
+    private int cachedWeightOf(long merchantId, int fallback) {
+        return merchants.peek(merchantId)
+                .map(m -> m.processingWeight() != null && m.processingWeight() > 0 ? m.processingWeight() : 1)
+                .orElse(fallback);
+    }
+
+    private static final class MerchantQueue {
+        final long merchantId;
+        int weight;
+        final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        int deficit;
+        boolean active;   // está no anel do DRR
+        boolean running;  // uma tarefa dele está executando agora
+
+        MerchantQueue(long merchantId, int weight) {
+            this.merchantId = merchantId;
+            this.weight = weight;
+        }
+    }
+
+    private final class Shard {
+        final int index;
+        final ReentrantLock lock = new ReentrantLock();
+        final Condition notEmpty = lock.newCondition();
+        final Map<Long, MerchantQueue> queues = new HashMap<>();
+        final ArrayDeque<MerchantQueue> ring = new ArrayDeque<>();
+        volatile int queued;
+        volatile boolean busy;
+
+        Shard(int index) {
+            this.index = index;
+        }
+
+        // chamado com o lock
+        void enqueue(long merchantId, int weight, Runnable task) {
+            MerchantQueue q = queues.get(merchantId);
+            if (q == null) {
+                q = new MerchantQueue(merchantId, weight);
+                queues.put(merchantId, q);
+            }
+            q.weight = weight;
+            q.tasks.add(task);
+            queued++;
+            if (!q.active) {
+                q.active = true;
+                ring.addLast(q);
+            }
+            notEmpty.signal();
+        }
+
+        void consume() {
+            while (true) {
+                MerchantQueue q;
+                Runnable task;
+                lock.lock();
+                try {
+                    while ((q = nextQueue()) == null) {
+                        if (!running) {
+                            return;
+                        }
+                        lock.unlock();
+                        boolean stole;
+                        try {
+                            stole = stealInto(this);
+                        } finally {
+                            lock.lock();
+                        }
+                        // um submit pode ter chegado enquanto o lock estava livre
+                        if (!stole && ring.isEmpty()) {
+                            notEmpty.await(idleStealMs, TimeUnit.MILLISECONDS);
+                        }
+                    }
+                    task = q.tasks.poll();
+                    queued--;
+                    q.deficit--;
+                    q.running = true;
+                    busy = true;
+                    // q é sempre a cabeça do anel (nextQueue)
+                    if (q.tasks.isEmpty()) {
+                        ring.pollFirst();
+                        q.active = false;
+                        q.deficit = 0;
+                    } else if (q.deficit <= 0) {
+                        // quantum da rodada gasto: vai para o fim do anel
+                        ring.addLast(ring.pollFirst());
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } finally {
+                    lock.unlock();
+                }
+
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    System.err.println("[SHARD-" + index + "] Task failed: " + e.getMessage());
+                } finally {
+                    unreserve(q.merchantId);
+                    lock.lock();
+                    try {
+                        q.running = false;
+                        busy = false;
+                        if (q.tasks.isEmpty()) {
+                            // fila vazia e nada executando: o merchant volta ao shard do hash
+                            queues.remove(q.merchantId, q);
+                            owner.remove(q.merchantId, this);
+                        }
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+            }
+        }
+
+        // chamado com o lock; recarrega o deficit do merchant da vez com o peso atual
+        MerchantQueue nextQueue() {
+            MerchantQueue q = ring.peekFirst();
+            if (q != null && q.deficit <= 0) {
+                q.weight = cachedWeightOf(q.merchantId, q.weight);
+                q.deficit += q.weight;
+            }
+            return q;
+        }
+    }
+
+    /** Move para {@code thief} a fila de um merchant parado do shard mais carregado. */
+    private boolean stealInto(Shard thief) {
+        Shard victim = null;
+        for (Shard s : shards) {
+            if (s != thief && s.queued > 1 && (victim == null || s.queued > victim.queued)) {
+                victim = s;
+            }
+        }
+        if (victim == null) {
+            return false;
+        }
+        // ordem fixa de locks pelo índice evita deadlock entre dois ladrões
+        Shard first = victim.index < thief.index ? victim : thief;
+        Shard second = first == victim ? thief : victim;
+        first.lock.lock();
+        second.lock.lock();
+        try {
+            Iterator<MerchantQueue> it = victim.ring.descendingIterator();
+            while (it.hasNext()) {
+                MerchantQueue q = it.next();
+                if (q.running || thief.queues.containsKey(q.merchantId)) {
+                    continue;
+                }
+                it.remove();
+                victim.queues.remove(q.merchantId);
+                victim.queued -= q.tasks.size();
+                thief.queues.put(q.merchantId, q);
+                thief.ring.addLast(q);
+                thief.queued += q.tasks.size();
+                owner.put(q.merchantId, thief);
+                steals.incrementAndGet();
+                return true;
+            }
+            return false;
+        } finally {
+            second.lock.unlock();
+            first.lock.unlock();
+        }
+    }
+}
@@ -1,120 +1,181 @@
 package edu.ucsal.fiadopay.core;
 
+import edu.ucsal.fiadopay.core.antifraud.RulePipeline;
+import edu.ucsal.fiadopay.core.events.PaymentEventBus;
+import edu.ucsal.fiadopay.core.events.PaymentEventType;
+import edu.ucsal.fiadopay.core.outbox.Outbox;
+import edu.ucsal.fiadopay.core.pricing.InstallmentPricing;
+import edu.ucsal.fiadopay.domain.OutboxEvent;
 import edu.ucsal.fiadopay.domain.Payment;
+import edu.ucsal.fiadopay.payment.PaymentMethodRegistry;
 import edu.ucsal.fiadopay.repo.PaymentRepository;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.lang.reflect.Method;
-import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 @Component
 public class PaymentProcessor {
 
     private final AsyncExecutor asyncExecutor;
-    private final AnnotationScanner annotationScanner;
+    private final RulePipeline rulePipeline;
     private final PaymentRepository payments;
     private final WebhookDispatcher webhookDispatcher;
+    private final PipelineMetrics metrics;
+    private final InstallmentPricing pricing;
+    private final PaymentEventBus events;
+    private final Outbox outbox;
+    private final PaymentMethodRegistry methods;
+    private final TransactionTemplate tx;
 
     public PaymentProcessor(AsyncExecutor asyncExecutor,
                             AnnotationScanner annotationScanner,
                             PaymentRepository payments,
-                            WebhookDispatcher webhookDispatcher) {
+                            WebhookDispatcher webhookDispatcher,
+                            PipelineMetrics metrics,
+                            InstallmentPricing pricing,
+                            PaymentEventBus events,
+                            Outbox outbox,
+                            PaymentMethodRegistry methods,
+                            PlatformTransactionManager transactionManager) {
 
         this.asyncExecutor = asyncExecutor;
-        this.annotationScanner = annotationScanner;
+        // regras antifraude compiladas uma vez no startup
+        this.rulePipeline = RulePipeline.compile(annotationScanner.getAntiFraund());
         this.payments = payments;
         this.webhookDispatcher = webhookDispatcher;
+        this.metrics = metrics;
+        this.pricing = pricing;
+        this.events = events;
+        this.outbox = outbox;
+        this.methods = methods;
+        this.tx = new TransactionTemplate(transactionManager);
+        // linhas reivindicadas pelo poller: o atraso de processamento já passou
+        outbox.register(OutboxEvent.Type.PROCESS_PAYMENT, AsyncExecutor.Lane.PAYMENT, e -> schedule(e.getMerchantId(), List.of(e.getPaymentId()), 0));
     }
 
-    public void submit(String paymentId) {
-        asyncExecutor.enqueue(() -> {
+    /**
+     * Grava a linha de outbox na transação de quem chama e agenda o
+     * processamento só depois do commit, com o atraso do método de
+     * pagamento. Se a lane não aceitar, a linha é liberada para o poller em
+     * vez de se perder.
+     */
+    public void submit(Payment payment) {
+        long merchantId = payment.getMerchantId();
+        String paymentId = payment.getId();
+        asyncExecutor.admit(AsyncExecutor.Lane.PAYMENT, merchantId);
+        long delay = methods.handler(payment.getMethod()).processingDelayMs();
+        outbox.append(OutboxEvent.Type.PROCESS_PAYMENT, merchantId, paymentId, null, delay);
+        AfterCommit.run(() -> schedule(merchantId, List.of(paymentId), delay));
+    }
+
+    /**
+     * Agenda um lote agrupado por atraso (na prática, por método): PIX não
+     * espera atrás do atraso simulado do cartão. A admissão confere vaga na
+     * lane e na cota do merchant para o lote inteiro.
+     */
+    public void submitAll(long merchantId, List<Payment> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        asyncExecutor.admit(AsyncExecutor.Lane.PAYMENT, merchantId, batch.size());
+        Map<Long, List<String>> byDelay = new LinkedHashMap<>();
+        for (Payment payment : batch) {
+            long delay = methods.handler(payment.getMethod()).processingDelayMs();
+            byDelay.computeIfAbsent(delay, d -> new ArrayList<>()).add(payment.getId());
+        }
+        byDelay.forEach((delay, ids) -> outbox.appendAll(OutboxEvent.Type.PROCESS_PAYMENT, merchantId, ids, delay));
+        AfterCommit.run(() -> byDelay.forEach((delay, ids) -> schedule(merchantId, ids, delay)));
+    }
+
+    // uma tarefa por pagamento: cada um conta na cota e no quantum DRR do merchant
+    private void schedule(long merchantId, List<String> paymentIds, long delayMs) {
+        for (int i = 0; i < paymentIds.size(); i++) {
+            String paymentId = paymentIds.get(i);
+            boolean accepted;
             try {
-                Thread.sleep(2000);
-                process(paymentId);
-            } catch (Exception e) {
-                System.err.println("Error processing payment " + paymentId + ": " + e.getMessage());
-                e.printStackTrace();
+                accepted = asyncExecutor.schedule(AsyncExecutor.Lane.PAYMENT, merchantId, () -> {
+                    try {
+                        process(paymentId);
+                    } catch (Exception e) {
+                        System.err.println("Error processing payment " + paymentId + ": " + e.getMessage());
+                    }
+                }, delayMs);
+            } catch (ExecutorSaturatedException e) {
+                accepted = false;
+            }
+            if (!accepted) {
+                // o resto do lote também vai ao poller, para não passar na frente deste
+                List<String> refused = List.copyOf(paymentIds.subList(i, paymentIds.size()));
+                System.err.println("[PROCESSOR] Lane busy, " + refused.size() + " payment(s) left to the outbox poller.");
+                outbox.release(OutboxEvent.Type.PROCESS_PAYMENT, refused);
+                return;
             }
-        });
+        }
     }
 
-    @Transactional
+    /**
+     * Processa em uma transação: a mudança de status, a remoção da linha de
+     * outbox e a linha do webhook são gravadas juntas. Reexecuções (poller
+     * após queda) encontram o pagamento fora de PENDING e só limpam a linha.
+     */
     public void process(String paymentId) {
-        var opt = payments.findById(paymentId);
+        long start = System.nanoTime();
+        Payment p = tx.execute(status -> doProcess(paymentId));
+        if (p != null) {
+            metrics.paymentProcessed(p.getMethod(), p.getStatus().name(), System.nanoTime() - start);
+        }
+    }
+
+    private Payment doProcess(String paymentId) {
+        outbox.complete(OutboxEvent.Type.PROCESS_PAYMENT, paymentId);
+        var opt = payments.findByIdForUpdate(paymentId);
         if (opt.isEmpty()) {
             System.err.println("Payment not found: " + paymentId);
-            return;
+            return null;
         }
 
         Payment p = opt.get();
+        if (p.getStatus() != Payment.Status.PENDING) {
+            return null;
+        }
 
         double amount = p.getAmount().doubleValue();
         int installments = p.getInstallments() == null ? 1 : p.getInstallments();
 
-        Map<String, Class<?>> rules = annotationScanner.getAntiFraund();
+        int failed = rulePipeline.firstFailure(amount);
+        if (failed >= 0) {
+            System.out.println("[ANTI-FRAUD] Rule FAILED → " + rulePipeline.ruleName(failed));
+            metrics.antifraudDeclined(rulePipeline.ruleName(failed));
 
-        for (Map.Entry<String, Class<?>> entry : rules.entrySet()) {
-            Class<?> clazz = entry.getValue();
-            try {
-                Object instance = clazz.getDeclaredConstructor().newInstance();
-                boolean ok = invokeValidate(instance, amount);
+            p.setStatus(Payment.Status.DECLINED);
+            p.setUpdatedAt(Instant.now());
+            payments.save(p);
+            events.publish(PaymentEventType.forStatus(p.getStatus()), p);
 
-                if (!ok) {
-                    System.out.println("[ANTI-FRAUD] Rule FAILED → " + entry.getKey());
-
-                    p.setStatus(Payment.Status.DECLINED);
-                    p.setUpdatedAt(java.time.Instant.now());
-                    payments.save(p);
-
-                    webhookDispatcher.enqueuePaymentEvent(p);
-                    return;
-                }
-
-            } catch (Exception e) {
-                System.err.println("Error executing antifraud rule " + entry.getKey() + ": " + e.getMessage());
-            }
+            webhookDispatcher.enqueuePaymentEvent(p);
+            return p;
         }
 
-        BigDecimal newTotal = calculateTotalWithInterest(
-                p.getAmount(),
-                p.getMonthlyInterest(),
-                installments
-        );
-
-        p.setTotalWithInterest(newTotal);
-        p.setStatus(Payment.Status.APPROVED);
-        p.setUpdatedAt(java.time.Instant.now());
+        // total já calculado na criação; só recalcula registros antigos sem ele
+        if (p.getTotalWithInterest() == null) {
+            p.setTotalWithInterest(pricing.total(p.getAmount(), p.getMonthlyInterest(), installments));
+        }
+        Instant now = Instant.now();
+        p.setStatus(methods.handler(p.getMethod()).settle(p, now));
+        p.setUpdatedAt(now);
 
         payments.save(p);
+        events.publish(PaymentEventType.forStatus(p.getStatus()), p);
 
         webhookDispatcher.enqueuePaymentEvent(p);
 
-        System.out.println("[PROCESSOR] Payment " + paymentId + " approved.");
-    }
-
-    private boolean invokeValidate(Object rule, double amount) throws Exception {
-        Class<?> c = rule.getClass();
-        try {
-            Method m = c.getMethod("validate", double.class);
-            return (Boolean) m.invoke(rule, amount);
-        } catch (NoSuchMethodException e) {
-            Method m = c.getMethod("validate", BigDecimal.class);
-            return (Boolean) m.invoke(rule, BigDecimal.valueOf(amount));
-        }
-    }
-
-    private BigDecimal calculateTotalWithInterest(BigDecimal base, Double monthlyInterest, int installments) {
-        if (installments <= 1 || monthlyInterest == null || monthlyInterest <= 0) {
-            return base.setScale(2, RoundingMode.HALF_UP);
-        }
-
-        double r = monthlyInterest / 100.0;
-        double factor = Math.pow(1 + r, installments);
-
-        return base.multiply(BigDecimal.valueOf(factor))
-                .setScale(2, RoundingMode.HALF_UP);
+        System.out.println("[PROCESSOR] Payment " + paymentId + " " + p.getStatus().name().toLowerCase() + ".");
+        return p;
     }
 }
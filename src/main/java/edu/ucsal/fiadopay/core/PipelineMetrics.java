@@ -0,0 +1,104 @@
+package edu.ucsal.fiadopay.core;
+
+import edu.ucsal.fiadopay.core.events.PaymentEventBus;
+import edu.ucsal.fiadopay.core.events.PaymentEventType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timers e contadores do pipeline de pagamentos e webhooks. Os meters com
+ * tags são criados uma vez e reaproveitados.
+ */
+@Component
+public class PipelineMetrics {
+
+    private final MeterRegistry registry;
+    private final Timer paymentCreate;
+    private final ConcurrentHashMap<String, Timer> processTimers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Counter> processedCounters = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Counter> ruleDeclines = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Timer> webhookTimers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Counter> rateLimitCounters = new ConcurrentHashMap<>();
+    private final EnumMap<PaymentEventType, Counter> eventCounters = new EnumMap<>(PaymentEventType.class);
+
+    public PipelineMetrics(MeterRegistry registry, PaymentEventBus events) {
+        this.registry = registry;
+        this.paymentCreate = Timer.builder("fiadopay.payment.create")
+                .description("PaymentService.createPayment latency")
+                .publishPercentileHistogram()
+                .register(registry);
+        for (PaymentEventType type : PaymentEventType.values()) {
+            eventCounters.put(type, Counter.builder("fiadopay.events")
+                    .tag("type", type.name())
+                    .register(registry));
+        }
+        events.subscribe("metrics", EnumSet.allOf(PaymentEventType.class), e -> eventCounters.get(e.type()).increment());
+    }
+
+    public Timer paymentCreate() {
+        return paymentCreate;
+    }
+
+    public void paymentProcessed(String method, String status, long nanos) {
+        Timer timer = processTimers.get(method);
+        if (timer == null) {
+            timer = processTimers.computeIfAbsent(method, m -> Timer.builder("fiadopay.payment.process")
+                    .description("PaymentProcessor.process latency")
+                    .tag("method", m)
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+
+        String key = method + ':' + status;
+        Counter counter = processedCounters.get(key);
+        if (counter == null) {
+            counter = processedCounters.computeIfAbsent(key, k -> Counter.builder("fiadopay.payments.processed")
+                    .tag("method", method)
+                    .tag("status", status)
+                    .register(registry));
+        }
+        counter.increment();
+    }
+
+    public void antifraudDeclined(String rule) {
+        Counter counter = ruleDeclines.get(rule);
+        if (counter == null) {
+            counter = ruleDeclines.computeIfAbsent(rule, r -> Counter.builder("fiadopay.antifraud.declined")
+                    .tag("rule", r)
+                    .register(registry));
+        }
+        counter.increment();
+    }
+
+    public void webhookSent(boolean success, long nanos) {
+        String outcome = success ? "success" : "failure";
+        Timer timer = webhookTimers.get(outcome);
+        if (timer == null) {
+            timer = webhookTimers.computeIfAbsent(outcome, o -> Timer.builder("fiadopay.webhook.send")
+                    .description("Webhook HTTP attempt latency")
+                    .tag("outcome", o)
+                    .register(registry));
+        }
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void rateLimit(String endpoint, boolean allowed) {
+        String key = endpoint + (allowed ? ":allowed" : ":rejected");
+        Counter counter = rateLimitCounters.get(key);
+        if (counter == null) {
+            counter = rateLimitCounters.computeIfAbsent(key, k -> Counter.builder("fiadopay.ratelimit.requests")
+                    .tag("endpoint", endpoint)
+                    .tag("outcome", allowed ? "allowed" : "rejected")
+                    .register(registry));
+        }
+        counter.increment();
+    }
+}
@@ -0,0 +1,139 @@
+package edu.ucsal.fiadopay.core;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Agrupa eventos destinados ao mesmo webhookUrl dentro de uma janela de tempo
+ * ou tamanho e envia um único POST com um array JSON. Eventos do mesmo
+ * pagamento dentro da janela são colapsados no mais recente; o resultado da
+ * entrega do lote é repassado a todos os eventos incluídos, colapsados ou não.
+ * O lote parte da maior contagem de tentativas entre os eventos e cada
+ * retentativa é gravada em todos eles. Todo lote aberto tem o timer da janela
+ * armado; se o timer não puder ser agendado, o lote é enviado na hora.
+ */
+@Component
+public class WebhookBatcher {
+
+    private final WebhookDeliveryEngine deliveryEngine;
+    private final AsyncExecutor asyncExecutor;
+    private final WebhookPayloadWriter payloadWriter;
+    private final long windowMs;
+    private final int maxSize;
+
+    private final ConcurrentHashMap<String, Batch> open = new ConcurrentHashMap<>();
+
+    public WebhookBatcher(WebhookDeliveryEngine deliveryEngine,
+                          AsyncExecutor asyncExecutor,
+                          WebhookPayloadWriter payloadWriter,
+                          @Value("${fiadopay.webhook.batch.window-ms:200}") long windowMs,
+                          @Value("${fiadopay.webhook.batch.max-size:100}") int maxSize) {
+        this.deliveryEngine = deliveryEngine;
+        this.asyncExecutor = asyncExecutor;
+        this.payloadWriter = payloadWriter;
+        this.windowMs = windowMs;
+        this.maxSize = maxSize;
+    }
+
+    public void add(String url, WebhookEvent event, int attempts, WebhookDeliveryEngine.RetryListener onRetry,
+                    Consumer<WebhookDeliveryEngine.Outcome> onOutcome) {
+        while (true) {
+            Batch batch = open.computeIfAbsent(url, u -> new Batch());
+            int size = batch.offer(event, attempts, onRetry, onOutcome);
+            if (size < 0) {
+                // lote fechado por outra thread entre o lookup e o offer
+                open.remove(url, batch);
+                continue;
+            }
+            if (size >= maxSize || (batch.arm() && !scheduleFlush(url, batch))) {
+                flush(url, batch);
+            }
+            return;
+        }
+    }
+
+    /**
+     * Agenda o fim da janela sem reservar vaga na lane: se a lane recusar o
+     * flush no vencimento, ele roda na thread do timer. False se nem o timer
+     * aceitou (encerramento).
+     */
+    private boolean scheduleFlush(String url, Batch batch) {
+        try {
+            asyncExecutor.scheduleDeferred(AsyncExecutor.Lane.WEBHOOK, () -> {
+                flush(url, batch);
+                return null;
+            }, windowMs, () -> flush(url, batch));
+            return true;
+        } catch (ExecutorSaturatedException e) {
+            System.err.println("[WEBHOOK] Batch timer not scheduled for " + url + ", flushing now: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void flush(String url, Batch batch) {
+        open.remove(url, batch);
+        if (!batch.close()) {
+            return;
+        }
+        List<WebhookEvent> events = batch.events();
+        if (events.isEmpty()) {
+            return;
+        }
+        List<String> paymentIds = events.stream().map(WebhookEvent::paymentId).toList();
+        deliveryEngine.deliver(paymentIds, url, payloadWriter.writeBatch(events),
+                batch.attempts,
+                (attempts, next) -> batch.retryListeners.forEach(l -> l.retrying(attempts, next)),
+                outcome -> batch.callbacks.forEach(c -> c.accept(outcome)));
+    }
+
+    private static final class Batch {
+        private final LinkedHashMap<String, WebhookEvent> byPayment = new LinkedHashMap<>();
+        private final List<Consumer<WebhookDeliveryEngine.Outcome>> callbacks = new ArrayList<>();
+        private final List<WebhookDeliveryEngine.RetryListener> retryListeners = new ArrayList<>();
+        private int attempts;
+        private boolean armed;
+        private boolean closed;
+
+        /** Retorna o tamanho após a inclusão, ou -1 se o lote já foi fechado. */
+        synchronized int offer(WebhookEvent event, int attempts, WebhookDeliveryEngine.RetryListener onRetry,
+                               Consumer<WebhookDeliveryEngine.Outcome> onOutcome) {
+            if (closed) {
+                return -1;
+            }
+            byPayment.put(event.paymentId(), event);
+            callbacks.add(onOutcome);
+            retryListeners.add(onRetry);
+            this.attempts = Math.max(this.attempts, attempts);
+            return byPayment.size();
+        }
+
+        /** True só para quem deve agendar o timer da janela (o primeiro a chamar). */
+        synchronized boolean arm() {
+            if (armed) {
+                return false;
+            }
+            armed = true;
+            return true;
+        }
+
+        /** Fecha o lote; false se já estava fechado (a outra chamada de flush envia). */
+        synchronized boolean close() {
+            if (closed) {
+                return false;
+            }
+            closed = true;
+            return true;
+        }
+
+        // só chamado após close(): nenhuma escrita concorrente
+        synchronized List<WebhookEvent> events() {
+            return new ArrayList<>(byPayment.values());
+        }
+    }
+}
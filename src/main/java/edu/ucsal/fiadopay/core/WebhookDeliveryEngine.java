@@ -0,0 +1,291 @@
+package edu.ucsal.fiadopay.core;
+
+import edu.ucsal.fiadopay.domain.WebhookDelivery;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+/**
+ * Entrega de webhooks com HttpClient não bloqueante (conexões reaproveitadas),
+ * timeouts de conexão e leitura, backoff exponencial com jitter e limite de
+ * requisições simultâneas por host, para que um endpoint lento não esgote a
+ * lane de webhooks.
+ *
+ * <p>A vaga na lane fica presa do início da tentativa até a resposta HTTP, então
+ * {@code fiadopay.executor.webhook.max-in-flight} limita as requisições em
+ * andamento. A espera entre tentativas não ocupa vaga (ela só é tomada quando
+ * a tentativa roda) e o número de tentativas é repassado ao chamador a cada
+ * retentativa, para que ele o grave e a contagem sobreviva a um restart.
+ */
+@Component
+public class WebhookDeliveryEngine {
+
+    private final AsyncExecutor asyncExecutor;
+    private final DeliveryAuditWriter auditWriter;
+    private final PipelineMetrics metrics;
+    private final HttpClient http;
+
+    private final Duration readTimeout;
+    private final int maxAttempts;
+    private final long backoffBaseMs;
+    private final long backoffMaxMs;
+    private final int perHostMaxInFlight;
+    private final long hostBusyRetryMs;
+    private final int hostBusyMaxRetries;
+
+    // requisições em andamento por host; a entrada some quando o host fica ocioso
+    private final ConcurrentHashMap<String, Integer> hostInFlight = new ConcurrentHashMap<>();
+
+    public WebhookDeliveryEngine(AsyncExecutor asyncExecutor,
+                                 DeliveryAuditWriter auditWriter,
+                                 PipelineMetrics metrics,
+                                 @Value("${fiadopay.webhook.connect-timeout-ms:2000}") long connectTimeoutMs,
+                                 @Value("${fiadopay.webhook.read-timeout-ms:5000}") long readTimeoutMs,
+                                 @Value("${fiadopay.webhook.max-attempts:5}") int maxAttempts,
+                                 @Value("${fiadopay.webhook.backoff-base-ms:500}") long backoffBaseMs,
+                                 @Value("${fiadopay.webhook.backoff-max-ms:60000}") long backoffMaxMs,
+                                 @Value("${fiadopay.webhook.per-host-max-in-flight:8}") int perHostMaxInFlight,
+                                 @Value("${fiadopay.webhook.host-busy-retry-ms:100}") long hostBusyRetryMs,
+                                 @Value("${fiadopay.webhook.host-busy-max-retries:50}") int hostBusyMaxRetries) {
+        this.asyncExecutor = asyncExecutor;
+        this.auditWriter = auditWriter;
+        this.metrics = metrics;
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .executor(Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("webhook-http-", 0).factory()))
+                .build();
+        this.readTimeout = Duration.ofMillis(readTimeoutMs);
+        this.maxAttempts = maxAttempts;
+        this.backoffBaseMs = backoffBaseMs;
+        this.backoffMaxMs = backoffMaxMs;
+        this.perHostMaxInFlight = perHostMaxInFlight;
+        this.hostBusyRetryMs = hostBusyRetryMs;
+        this.hostBusyMaxRetries = hostBusyMaxRetries;
+    }
+
+    /**
+     * DELIVERED e FAILED são finais (FAILED inclui URL inválida e tentativas
+     * esgotadas); SHED indica que a lane recusou a entrega, que pode ser
+     * tentada de novo mais tarde.
+     */
+    public enum Outcome { DELIVERED, FAILED, SHED }
+
+    /** Avisado a cada retentativa agendada, com as tentativas já feitas e quando será a próxima. */
+    @FunctionalInterface
+    public interface RetryListener {
+        void retrying(int attempts, Instant nextAttemptAt);
+    }
+
+    public void deliver(List<String> paymentIds, String url, WebhookPayloadWriter.SignedPayload payload,
+                        Consumer<Outcome> onOutcome) {
+        deliver(paymentIds, url, payload, 0, (attempts, next) -> { }, onOutcome);
+    }
+
+    /**
+     * Agenda a entrega do payload assinado para a URL. Nunca bloqueia o chamador.
+     * {@code paymentIds} são os pagamentos do payload (vários em um lote) e cada
+     * um ganha o seu registro na auditoria; {@code attempts} são as tentativas
+     * já feitas antes (gravadas pelo chamador via {@code onRetry});
+     * {@code onOutcome} é chamado uma vez, quando a entrega termina.
+     */
+    public void deliver(List<String> paymentIds, String url, WebhookPayloadWriter.SignedPayload payload,
+                        int attempts, RetryListener onRetry, Consumer<Outcome> onOutcome) {
+        URI uri;
+        try {
+            uri = URI.create(url);
+            if (uri.getHost() == null) {
+                throw new IllegalArgumentException("missing host");
+            }
+        } catch (IllegalArgumentException e) {
+            Delivery d = new Delivery(paymentIds, null, payload, attempts, onRetry, onOutcome);
+            record(d, false, null, "Invalid webhook URL: " + url, null);
+            d.finish(Outcome.FAILED);
+            return;
+        }
+        Delivery d = new Delivery(paymentIds, uri, payload, attempts, onRetry, onOutcome);
+        if (d.attempt >= maxAttempts) {
+            // tentativas esgotadas antes de um restart
+            record(d, false, null, "Max attempts reached", null);
+            d.finish(Outcome.FAILED);
+            return;
+        }
+        try {
+            if (!asyncExecutor.enqueueAsync(AsyncExecutor.Lane.WEBHOOK, () -> attempt(d))) {
+                shed(d, "Webhook lane saturated, delivery shed");
+            }
+        } catch (ExecutorSaturatedException e) {
+            shed(d, e.getMessage());
+        }
+    }
+
+    // o estágio devolvido completa junto com a resposta: é quando a lane libera a vaga
+    private CompletionStage<?> attempt(Delivery d) {
+        String host = d.uri.getAuthority();
+        if (!tryAcquireHost(host)) {
+            if (++d.hostBusyRetries <= hostBusyMaxRetries) {
+                // host no limite: tenta de novo em breve sem contar como tentativa
+                retryLater(d, hostBusyRetryMs + ThreadLocalRandom.current().nextLong(hostBusyRetryMs + 1));
+            } else {
+                // host ocupado demais: conta como tentativa falha e segue o backoff até expirar
+                d.hostBusyRetries = 0;
+                d.attempt++;
+                failed(d, null, "Host " + host + " busy");
+            }
+            return null;
+        }
+        d.hostBusyRetries = 0;
+        d.attempt++;
+        HttpRequest request = HttpRequest.newBuilder(d.uri)
+                .timeout(readTimeout)
+                .header("Content-Type", "application/json")
+                .header(WebhookPayloadWriter.SIGNATURE_HEADER, d.payload.signature())
+                .POST(HttpRequest.BodyPublishers.ofByteArray(d.payload.body()))
+                .build();
+        long start = System.nanoTime();
+        try {
+            return http.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        releaseHost(host);
+                        metrics.webhookSent(error == null && response.statusCode() / 100 == 2, System.nanoTime() - start);
+                        onResult(d, response, error);
+                    });
+        } catch (RuntimeException e) {
+            releaseHost(host);
+            onResult(d, null, e);
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    private boolean tryAcquireHost(String host) {
+        boolean[] acquired = new boolean[1];
+        hostInFlight.compute(host, (h, count) -> {
+            int current = count == null ? 0 : count;
+            if (current >= perHostMaxInFlight) {
+                return count;
+            }
+            acquired[0] = true;
+            return current + 1;
+        });
+        return acquired[0];
+    }
+
+    private void releaseHost(String host) {
+        hostInFlight.computeIfPresent(host, (h, count) -> count <= 1 ? null : count - 1);
+    }
+
+    private void onResult(Delivery d, HttpResponse<Void> response, Throwable error) {
+        Integer statusCode = response == null ? null : response.statusCode();
+        if (error == null && statusCode >= 200 && statusCode < 300) {
+            record(d, true, statusCode, null, null);
+            System.out.println("[WEBHOOK] Delivered to " + d.uri + " (attempt " + d.attempt + ")");
+            d.finish(Outcome.DELIVERED);
+            return;
+        }
+        if (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        String message = error != null
+                ? error.getClass().getSimpleName() + ": " + error.getMessage()
+                : "HTTP " + statusCode;
+        failed(d, statusCode, message);
+    }
+
+    private void failed(Delivery d, Integer statusCode, String message) {
+        if (d.attempt >= maxAttempts) {
+            record(d, false, statusCode, message, null);
+            System.err.println("[WEBHOOK] FAILED after " + d.attempt + " attempts: " + message);
+            d.finish(Outcome.FAILED);
+            return;
+        }
+        long delay = backoff(d.attempt);
+        Instant next = Instant.now().plusMillis(delay);
+        record(d, false, statusCode, message, next);
+        try {
+            d.onRetry.retrying(d.attempt, next);
+        } catch (RuntimeException e) {
+            System.err.println("[WEBHOOK] Could not persist attempt " + d.attempt + " for " + d.paymentIds + ": " + e.getMessage());
+        }
+        retryLater(d, delay);
+    }
+
+    // backoff exponencial com "equal jitter": metade fixa, metade aleatória
+    private long backoff(int attempt) {
+        long exp = backoffBaseMs << Math.min(attempt - 1, 20);
+        long capped = Math.min(exp, backoffMaxMs);
+        long half = capped / 2;
+        return half + ThreadLocalRandom.current().nextLong(half + 1);
+    }
+
+    // a vaga na lane só é tomada quando a espera vence
+    private void retryLater(Delivery d, long delayMs) {
+        try {
+            asyncExecutor.scheduleDeferred(AsyncExecutor.Lane.WEBHOOK, () -> attempt(d), delayMs,
+                    () -> shed(d, "Webhook lane saturated, delivery shed"));
+        } catch (ExecutorSaturatedException e) {
+            shed(d, e.getMessage());
+        }
+    }
+
+    private void shed(Delivery d, String reason) {
+        record(d, false, null, reason, null);
+        d.finish(Outcome.SHED);
+    }
+
+    private void record(Delivery d, boolean success, Integer statusCode, String error, Instant nextAttemptAt) {
+        Instant now = Instant.now();
+        for (String paymentId : d.paymentIds) {
+            WebhookDelivery w = new WebhookDelivery();
+            w.setPaymentId(paymentId);
+            w.setSuccess(success);
+            w.setErrorMessage(error);
+            w.setStatusCode(statusCode);
+            w.setAttempt(d.attempt);
+            w.setNextAttemptAt(nextAttemptAt);
+            w.setAt(now);
+            auditWriter.record(w);
+        }
+    }
+
+    private static final class Delivery {
+        final List<String> paymentIds;
+        final URI uri;
+        final WebhookPayloadWriter.SignedPayload payload;
+        final RetryListener onRetry;
+        final Consumer<Outcome> onOutcome;
+        int attempt;
+        int hostBusyRetries;
+
+        Delivery(List<String> paymentIds, URI uri, WebhookPayloadWriter.SignedPayload payload, int attempt,
+                 RetryListener onRetry, Consumer<Outcome> onOutcome) {
+            this.paymentIds = paymentIds;
+            this.uri = uri;
+            this.payload = payload;
+            this.attempt = attempt;
+            this.onRetry = onRetry;
+            this.onOutcome = onOutcome;
+        }
+
+        void finish(Outcome outcome) {
+            try {
+                onOutcome.accept(outcome);
+            } catch (RuntimeException e) {
+                System.err.println("[WEBHOOK] Outcome callback failed for " + paymentIds + ": " + e.getMessage());
+            }
+        }
+    }
+}
@@ -1,104 +1,87 @@
 package edu.ucsal.fiadopay.core;
 
+import edu.ucsal.fiadopay.core.id.IdGenerator;
+import edu.ucsal.fiadopay.core.outbox.Outbox;
+import edu.ucsal.fiadopay.domain.OutboxEvent;
 import edu.ucsal.fiadopay.domain.Payment;
-import edu.ucsal.fiadopay.domain.WebhookDelivery;
-import edu.ucsal.fiadopay.repo.WebhookDeliveryRepository;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.MediaType;
+import edu.ucsal.fiadopay.service.MerchantAuthCache;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
+
+import java.util.List;
 
 @Component
 public class WebhookDispatcher {
 
-    private final AsyncExecutor asyncExecutor;
-    private final WebhookDeliveryRepository deliveries;
-    private final RestTemplate http = new RestTemplate();
+    private final WebhookDeliveryEngine deliveryEngine;
+    private final WebhookBatcher batcher;
+    private final WebhookPayloadWriter payloadWriter;
+    private final MerchantAuthCache merchants;
+    private final IdGenerator idGenerator;
+    private final Outbox outbox;
 
-    public WebhookDispatcher(AsyncExecutor asyncExecutor,
-                             WebhookDeliveryRepository deliveries) {
-        this.asyncExecutor = asyncExecutor;
-        this.deliveries = deliveries;
+    public WebhookDispatcher(WebhookDeliveryEngine deliveryEngine,
+                             WebhookBatcher batcher,
+                             WebhookPayloadWriter payloadWriter,
+                             MerchantAuthCache merchants,
+                             IdGenerator idGenerator,
+                             Outbox outbox) {
+        this.deliveryEngine = deliveryEngine;
+        this.batcher = batcher;
+        this.payloadWriter = payloadWriter;
+        this.merchants = merchants;
+        this.idGenerator = idGenerator;
+        this.outbox = outbox;
+        outbox.register(OutboxEvent.Type.PAYMENT_WEBHOOK, AsyncExecutor.Lane.WEBHOOK, this::redeliver);
     }
 
     /**
-     * Coloca o webhook na fila para envio assíncrono.
+     * Registra o evento no outbox, na transação de quem mudou o status, com a
+     * foto do pagamento nessa transição, e depois do commit entrega ao motor de
+     * envio assíncrono, ou ao batcher quando o merchant optou por lotes.
      */
     public void enqueuePaymentEvent(Payment payment) {
-        asyncExecutor.enqueue(() -> {
-            try {
-                sendPaymentWebhook(payment);
-            } catch (Exception e) {
-                System.err.println("[WEBHOOK] Error: " + e.getMessage());
-                e.printStackTrace();
-            }
-        });
-    }
-
-    /**
-     * Lógica principal de envio do webhook.
-     */
-    private void sendPaymentWebhook(Payment payment) {
 
         if (payment.getWebhookUrl() == null || payment.getWebhookUrl().isBlank()) {
             System.out.println("[WEBHOOK] Payment " + payment.getId() + " has no webhook URL. Skipping.");
             return;
         }
 
-        try {
-            // Corpo do webhook
-            String json = """
-                    {
-                      "paymentId": "%s",
-                      "status": "%s",
-                      "amount": "%s",
-                      "totalWithInterest": "%s",
-                      "updatedAt": "%s"
-                    }
-                    """.formatted(
-                    payment.getId(),
-                    payment.getStatus(),
-                    payment.getAmount(),
-                    payment.getTotalWithInterest(),
-                    payment.getUpdatedAt()
-            );
-
-            // Headers JSON
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-
-            HttpEntity<String> request = new HttpEntity<>(json, headers);
-
-            // Envio POST
-            http.exchange(
-                    payment.getWebhookUrl(),
-                    HttpMethod.POST,
-                    request,
-                    String.class
-            );
-
-            // Registrar sucesso
-            recordDelivery(payment, true, null);
+        WebhookEvent event = WebhookEvent.of(idGenerator.next("evt_"), payment);
+        String url = payment.getWebhookUrl();
+        long merchantId = payment.getMerchantId();
+        long outboxId = outbox.append(event.toOutbox(merchantId, url), 0).getId();
+        AfterCommit.run(() -> send(url, merchantId, event, outboxId, 0));
+    }
 
-            System.out.println("[WEBHOOK] Delivered to " + payment.getWebhookUrl());
+    // linha reivindicada pelo poller: reenvia o mesmo evento gravado na transição
+    private void redeliver(OutboxEvent row) {
+        if (row.getWebhookUrl() == null || row.getEventStatus() == null) {
+            System.err.println("[WEBHOOK] Outbox row " + row.getId() + " has no event snapshot. Dropping.");
+            outbox.complete(row.getId());
+            return;
+        }
+        send(row.getWebhookUrl(), row.getMerchantId(), WebhookEvent.of(row), row.getId(), row.getDeliveryAttempts());
+    }
 
-        } catch (Exception error) {
-            recordDelivery(payment, false, error.getMessage());
-            System.err.println("[WEBHOOK] FAILED: " + error.getMessage());
+    private void send(String url, long merchantId, WebhookEvent event, long outboxId, int attempts) {
+        WebhookDeliveryEngine.RetryListener onRetry = (n, next) -> outbox.recordDeliveryAttempts(outboxId, n, next);
+        boolean batching = merchants.find(merchantId)
+                .map(MerchantAuthCache.Snapshot::webhookBatching)
+                .orElse(false);
+        if (batching) {
+            batcher.add(url, event, attempts, onRetry, outcome -> settle(outboxId, outcome));
+            return;
         }
+
+        deliveryEngine.deliver(List.of(event.paymentId()), url, payloadWriter.write(event), attempts, onRetry,
+                outcome -> settle(outboxId, outcome));
     }
 
-    /**
-     * Persistência de tentativas de webhook para auditorias.
-     */
-    private void recordDelivery(Payment payment, boolean success, String error) {
-        WebhookDelivery d = new WebhookDelivery();
-        d.setPaymentId(payment.getId());
-        d.setSuccess(success);
-        d.setErrorMessage(error);
-        d.setAt(java.time.Instant.now());
-        deliveries.save(d);
+    private void settle(long outboxId, WebhookDeliveryEngine.Outcome outcome) {
+        if (outcome == WebhookDeliveryEngine.Outcome.SHED) {
+            outbox.release(outboxId);
+        } else {
+            outbox.complete(outboxId);
+        }
     }
 }
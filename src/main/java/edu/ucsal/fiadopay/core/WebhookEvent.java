@@ -0,0 +1,50 @@
+package edu.ucsal.fiadopay.core;
+
+import edu.ucsal.fiadopay.domain.OutboxEvent;
+import edu.ucsal.fiadopay.domain.Payment;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Snapshot imutável de uma mudança de status enviada por webhook. O eventId
+ * permite ao merchant descartar entregas duplicadas.
+ */
+public record WebhookEvent(String eventId, String paymentId, String status,
+                           BigDecimal amount, BigDecimal totalWithInterest, Instant updatedAt) {
+
+    public static WebhookEvent of(String eventId, Payment payment) {
+        return new WebhookEvent(
+                eventId,
+                payment.getId(),
+                payment.getStatus().name(),
+                payment.getAmount(),
+                payment.getTotalWithInterest(),
+                payment.getUpdatedAt());
+    }
+
+    /** Evento gravado na linha do outbox por {@link #toOutbox}. */
+    public static WebhookEvent of(OutboxEvent row) {
+        return new WebhookEvent(
+                row.getReference(),
+                row.getPaymentId(),
+                row.getEventStatus(),
+                row.getEventAmount(),
+                row.getEventTotalWithInterest(),
+                row.getEventUpdatedAt());
+    }
+
+    /** Linha de outbox com a foto completa do evento, para a reentrega não depender do estado atual. */
+    public OutboxEvent.OutboxEventBuilder toOutbox(long merchantId, String webhookUrl) {
+        return OutboxEvent.builder()
+                .type(OutboxEvent.Type.PAYMENT_WEBHOOK)
+                .merchantId(merchantId)
+                .paymentId(paymentId)
+                .reference(eventId)
+                .webhookUrl(webhookUrl)
+                .eventStatus(status)
+                .eventAmount(amount)
+                .eventTotalWithInterest(totalWithInterest)
+                .eventUpdatedAt(updatedAt);
+    }
+}
@@ -0,0 +1,158 @@
+package edu.ucsal.fiadopay.core;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Serializa eventos de webhook com JsonGenerator direto em buffers
+ * reaproveitados, calculando o HMAC-SHA256 ({@code fiadopay.webhook-secret})
+ * na mesma passada sobre os bytes.
+ */
+@Component
+public class WebhookPayloadWriter {
+
+    public static final String SIGNATURE_HEADER = "X-FiadoPay-Signature";
+
+    private static final SerializableString EVENT_ID = new SerializedString("eventId");
+    private static final SerializableString PAYMENT_ID = new SerializedString("paymentId");
+    private static final SerializableString STATUS = new SerializedString("status");
+    private static final SerializableString AMOUNT = new SerializedString("amount");
+    private static final SerializableString TOTAL = new SerializedString("totalWithInterest");
+    private static final SerializableString UPDATED_AT = new SerializedString("updatedAt");
+
+    private static final int MAX_POOLED = 64;
+
+    private final JsonFactory jsonFactory;
+    private final Mac prototype;
+    private final ConcurrentLinkedQueue<SigningBuffer> pool = new ConcurrentLinkedQueue<>();
+
+    public WebhookPayloadWriter(ObjectMapper objectMapper,
+                                @Value("${fiadopay.webhook-secret}") String secret) {
+        this.jsonFactory = objectMapper.getFactory();
+        try {
+            this.prototype = Mac.getInstance("HmacSHA256");
+            this.prototype.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 unavailable", e);
+        }
+    }
+
+    public record SignedPayload(byte[] body, String signature) {}
+
+    public SignedPayload write(WebhookEvent event) {
+        SigningBuffer buffer = acquire();
+        try (JsonGenerator gen = jsonFactory.createGenerator(buffer)) {
+            writeEvent(gen, event);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return release(buffer);
+    }
+
+    public SignedPayload writeBatch(List<WebhookEvent> events) {
+        SigningBuffer buffer = acquire();
+        try (JsonGenerator gen = jsonFactory.createGenerator(buffer)) {
+            gen.writeStartArray();
+            for (WebhookEvent event : events) {
+                writeEvent(gen, event);
+            }
+            gen.writeEndArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return release(buffer);
+    }
+
+    private void writeEvent(JsonGenerator gen, WebhookEvent event) throws IOException {
+        gen.writeStartObject();
+        gen.writeFieldName(EVENT_ID);
+        gen.writeString(event.eventId());
+        gen.writeFieldName(PAYMENT_ID);
+        gen.writeString(event.paymentId());
+        gen.writeFieldName(STATUS);
+        gen.writeString(event.status());
+        gen.writeFieldName(AMOUNT);
+        gen.writeNumber(event.amount());
+        gen.writeFieldName(TOTAL);
+        gen.writeNumber(event.totalWithInterest());
+        gen.writeFieldName(UPDATED_AT);
+        if (event.updatedAt() == null) {
+            gen.writeNull();
+        } else {
+            gen.writeString(event.updatedAt().toString());
+        }
+        gen.writeEndObject();
+    }
+
+    private SigningBuffer acquire() {
+        SigningBuffer buffer = pool.poll();
+        if (buffer == null) {
+            try {
+                buffer = new SigningBuffer((Mac) prototype.clone());
+            } catch (CloneNotSupportedException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return buffer;
+    }
+
+    private SignedPayload release(SigningBuffer buffer) {
+        SignedPayload payload = new SignedPayload(
+                Arrays.copyOf(buffer.bytes, buffer.count),
+                "sha256=" + HexFormat.of().formatHex(buffer.mac.doFinal()));
+        buffer.count = 0; // doFinal já reinicia o Mac
+        if (pool.size() < MAX_POOLED) {
+            pool.offer(buffer);
+        }
+        return payload;
+    }
+
+    /** Buffer de bytes crescente que alimenta o Mac a cada escrita. */
+    private static final class SigningBuffer extends OutputStream {
+        final Mac mac;
+        byte[] bytes = new byte[512];
+        int count;
+
+        SigningBuffer(Mac mac) {
+            this.mac = mac;
+        }
+
+        @Override
+        public void write(int b) {
+            ensureCapacity(1);
+            bytes[count++] = (byte) b;
+            mac.update((byte) b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            ensureCapacity(len);
+            System.arraycopy(b, off, bytes, count, len);
+            count += len;
+            mac.update(b, off, len);
+        }
+
+        private void ensureCapacity(int extra) {
+            if (count + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, count + extra));
+            }
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package edu.ucsal.fiadopay.core.antifraud;
+
+/**
+ * Contrato tipado de uma regra antifraude. {@code threshold} vem de
+ * {@link edu.ucsal.fiadopay.annotations.AntiFraud#threshold()}.
+ */
+@FunctionalInterface
+public interface FraudRule {
+    boolean validate(double amount, double threshold);
+}
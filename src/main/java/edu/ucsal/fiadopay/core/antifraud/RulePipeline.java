@@ -0,0 +1,125 @@
+package edu.ucsal.fiadopay.core.antifraud;
+
+import edu.ucsal.fiadopay.annotations.AntiFraud;
+
+import java.lang.invoke.*;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Regras {@link AntiFraud} compiladas uma única vez: cada classe vira um
+ * singleton ligado a {@link FraudRule} via {@link LambdaMetafactory}, e as
+ * regras ficam ordenadas por {@link AntiFraud#cost()}. A avaliação por
+ * pagamento não usa reflexão nem aloca (exceto regras legadas com
+ * {@code validate(BigDecimal)}). Uma regra que não compila impede o startup:
+ * seguir sem ela aprovaria em silêncio o que ela reprovaria.
+ */
+public final class RulePipeline {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private final String[] names;
+    private final FraudRule[] rules;
+    private final double[] thresholds;
+
+    private RulePipeline(String[] names, FraudRule[] rules, double[] thresholds) {
+        this.names = names;
+        this.rules = rules;
+        this.thresholds = thresholds;
+    }
+
+    public static RulePipeline compile(Map<String, Class<?>> ruleClasses) {
+        List<Map.Entry<String, Class<?>>> ordered = new ArrayList<>(ruleClasses.entrySet());
+        ordered.sort(Comparator
+                .comparingInt((Map.Entry<String, Class<?>> e) -> costOf(e.getValue()))
+                .thenComparing(Map.Entry::getKey));
+
+        List<String> names = new ArrayList<>();
+        List<FraudRule> rules = new ArrayList<>();
+        List<Double> thresholds = new ArrayList<>();
+        for (Map.Entry<String, Class<?>> entry : ordered) {
+            try {
+                rules.add(bind(entry.getValue()));
+                names.add(entry.getKey());
+                AntiFraud meta = entry.getValue().getAnnotation(AntiFraud.class);
+                thresholds.add(meta == null ? 0.0 : meta.threshold());
+            } catch (Throwable e) {
+                throw new IllegalStateException("Could not compile anti-fraud rule " + entry.getKey()
+                        + " (" + entry.getValue().getName() + ")", e);
+            }
+        }
+
+        double[] t = new double[thresholds.size()];
+        for (int i = 0; i < t.length; i++) {
+            t[i] = thresholds.get(i);
+        }
+        return new RulePipeline(names.toArray(String[]::new), rules.toArray(FraudRule[]::new), t);
+    }
+
+    /**
+     * Índice da primeira regra que reprova o valor, ou -1 se todas aprovarem.
+     */
+    public int firstFailure(double amount) {
+        for (int i = 0; i < rules.length; i++) {
+            if (!rules[i].validate(amount, thresholds[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public String ruleName(int index) {
+        return names[index];
+    }
+
+    public int size() {
+        return rules.length;
+    }
+
+    private static int costOf(Class<?> clazz) {
+        AntiFraud meta = clazz.getAnnotation(AntiFraud.class);
+        return meta == null ? 0 : meta.cost();
+    }
+
+    private static FraudRule bind(Class<?> clazz) throws Throwable {
+        Object instance = clazz.getDeclaredConstructor().newInstance();
+        if (instance instanceof FraudRule rule) {
+            return rule;
+        }
+
+        // regras legadas: validate(double) ou validate(BigDecimal), sem threshold
+        try {
+            AmountCheck check = bindTo(AmountCheck.class, clazz, instance, double.class);
+            return (amount, threshold) -> check.validate(amount);
+        } catch (NoSuchMethodException e) {
+            DecimalCheck check = bindTo(DecimalCheck.class, clazz, instance, BigDecimal.class);
+            return (amount, threshold) -> check.validate(BigDecimal.valueOf(amount));
+        }
+    }
+
+    private static <T> T bindTo(Class<T> iface, Class<?> clazz, Object instance, Class<?> argType) throws Throwable {
+        MethodType samType = MethodType.methodType(boolean.class, argType);
+        MethodHandle target = LOOKUP.findVirtual(clazz, "validate", samType);
+        CallSite site = LambdaMetafactory.metafactory(
+                LOOKUP,
+                "validate",
+                MethodType.methodType(iface, clazz),
+                samType,
+                target,
+                samType);
+        return iface.cast(site.getTarget().invoke(instance));
+    }
+
+    @FunctionalInterface
+    interface AmountCheck {
+        boolean validate(double amount);
+    }
+
+    @FunctionalInterface
+    interface DecimalCheck {
+        boolean validate(BigDecimal amount);
+    }
+}
@@ -0,0 +1,128 @@
+package edu.ucsal.fiadopay.core.cache;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Cache em memória com tamanho máximo e TTL opcional ({@code ttlMs <= 0}
+ * desliga a expiração). Leituras não usam lock; ao estourar o limite as
+ * entradas mais antigas (ordem de escrita) são removidas.
+ */
+public class BoundedCache<K, V> {
+
+    private final ConcurrentHashMap<K, Entry<K, V>> entries = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Entry<K, V>> writeOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger writeOrderSize = new AtomicInteger();
+    private final int maxSize;
+    private final long ttlNanos;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public BoundedCache(int maxSize, long ttlMs) {
+        this.maxSize = maxSize;
+        this.ttlNanos = ttlMs <= 0 ? 0 : ttlMs * 1_000_000L;
+    }
+
+    public V getIfPresent(K key) {
+        Entry<K, V> e = entries.get(key);
+        if (e == null) {
+            misses.increment();
+            return null;
+        }
+        if (ttlNanos > 0 && System.nanoTime() - e.writtenAt() > ttlNanos) {
+            if (entries.remove(key, e)) {
+                evictions.increment();
+            }
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return e.value();
+    }
+
+    /**
+     * Read-through: em caso de miss chama o loader; um retorno null não é cacheado.
+     * Se um put() gravou a chave enquanto o loader rodava, o valor gravado vence.
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        V cached = getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        V loaded = loader.apply(key);
+        if (loaded == null) {
+            return null;
+        }
+        return insert(key, loaded, true).value();
+    }
+
+    public void put(K key, V value) {
+        insert(key, value, false);
+    }
+
+    private Entry<K, V> insert(K key, V value, boolean onlyIfAbsent) {
+        Entry<K, V> e = new Entry<>(key, value, System.nanoTime());
+        if (onlyIfAbsent) {
+            Entry<K, V> current = entries.putIfAbsent(key, e);
+            if (current != null) {
+                return current;
+            }
+        } else {
+            entries.put(key, e);
+        }
+        writeOrder.add(e);
+        int queued = writeOrderSize.incrementAndGet();
+        if (entries.size() > maxSize) {
+            evict();
+        } else if (queued > 2 * maxSize) {
+            purgeStale();
+        }
+        return e;
+    }
+
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    public CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), entries.size(), maxSize);
+    }
+
+    private void evict() {
+        while (entries.size() > maxSize) {
+            Entry<K, V> oldest = writeOrder.poll();
+            if (oldest == null) {
+                return;
+            }
+            writeOrderSize.decrementAndGet();
+            // nós de entradas já sobrescritas ou invalidadas são apenas descartados
+            if (entries.remove(oldest.key(), oldest)) {
+                evictions.increment();
+            }
+        }
+    }
+
+    // regravações da mesma chave deixam nós órfãos na fila; limpa sem esperar um overflow
+    private void purgeStale() {
+        Iterator<Entry<K, V>> it = writeOrder.iterator();
+        while (it.hasNext()) {
+            Entry<K, V> e = it.next();
+            if (entries.get(e.key()) != e) {
+                it.remove();
+                writeOrderSize.decrementAndGet();
+            }
+        }
+    }
+
+    private record Entry<K, V>(K key, V value, long writtenAt) {}
+}
@@ -0,0 +1,3 @@
+package edu.ucsal.fiadopay.core.cache;
+
+public record CacheStats(long hits, long misses, long evictions, int size, int maxSize) {}
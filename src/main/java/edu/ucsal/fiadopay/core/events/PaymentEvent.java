@@ -0,0 +1,31 @@
+package edu.ucsal.fiadopay.core.events;
+
+import edu.ucsal.fiadopay.controller.PaymentResponse;
+
+/**
+ * Slot do ring buffer do {@link PaymentEventBus}. É pré-alocado e reutilizado
+ * quando o ring dá a volta: o listener não deve guardar a referência ao
+ * evento, só aos valores ({@link #payment()} é imutável).
+ */
+public final class PaymentEvent {
+
+    private long sequence;
+    private PaymentEventType type;
+    private long merchantId;
+    private PaymentResponse payment;
+
+    void set(long sequence, PaymentEventType type, long merchantId, PaymentResponse payment) {
+        this.sequence = sequence;
+        this.type = type;
+        this.merchantId = merchantId;
+        this.payment = payment;
+    }
+
+    public long sequence() { return sequence; }
+
+    public PaymentEventType type() { return type; }
+
+    public long merchantId() { return merchantId; }
+
+    public PaymentResponse payment() { return payment; }
+}
@@ -0,0 +1,213 @@
+package edu.ucsal.fiadopay.core.events;
+
+import edu.ucsal.fiadopay.controller.PaymentResponse;
+import edu.ucsal.fiadopay.core.AfterCommit;
+import edu.ucsal.fiadopay.core.AnnotationScanner;
+import edu.ucsal.fiadopay.domain.Payment;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Barramento de eventos de pagamento em processo, no estilo do Disruptor.
+ *
+ * <ul>
+ *   <li>Os eventos ficam em um ring buffer pré-alocado de {@link PaymentEvent}:
+ *       publicar não trava, só reivindica uma sequência, preenche o slot e o
+ *       marca como disponível. O slot é reaproveitado, mas cada publicação
+ *       aloca a foto imutável do pagamento ({@link PaymentResponse}), tirada
+ *       na transação porque a entidade continua mutável, e o callback de
+ *       after-commit.</li>
+ *   <li>Cada assinante tem uma thread consumidora e a sua própria sequência.
+ *       Ele consome em lote tudo o que já foi publicado e só então avança a
+ *       sequência.</li>
+ *   <li>Quem publica só espera quando o ring está cheio, ou seja, quando o
+ *       assinante mais lento está um ring inteiro atrás. Os assinantes não
+ *       podem bloquear em {@link PaymentEventListener#onEvent}.</li>
+ * </ul>
+ *
+ * <p>As classes {@code @EventHandler} do {@link AnnotationScanner} são criadas
+ * uma vez (com injeção do Spring) e assinam o evento da anotação. Os eventos
+ * são publicados depois do commit de quem mudou o pagamento.
+ */
+@Component
+public class PaymentEventBus {
+
+    private final PaymentEvent[] ring;
+    private final int mask;
+    private final int shift;
+    // volta do ring em que cada slot foi publicado (-1 = nunca)
+    private final AtomicIntegerArray published;
+    // última sequência reivindicada
+    private final AtomicLong cursor = new AtomicLong(-1);
+    private final List<Consumer> consumers = new CopyOnWriteArrayList<>();
+    private volatile boolean running = true;
+
+    public PaymentEventBus(AnnotationScanner annotationScanner,
+                           AutowireCapableBeanFactory beanFactory,
+                           @Value("${fiadopay.events.ring-size:8192}") int ringSize) {
+        if (Integer.bitCount(ringSize) != 1) {
+            throw new IllegalArgumentException("fiadopay.events.ring-size must be a power of two: " + ringSize);
+        }
+        this.ring = new PaymentEvent[ringSize];
+        for (int i = 0; i < ringSize; i++) {
+            ring[i] = new PaymentEvent();
+        }
+        this.mask = ringSize - 1;
+        this.shift = Integer.numberOfTrailingZeros(ringSize);
+        this.published = new AtomicIntegerArray(ringSize);
+        for (int i = 0; i < ringSize; i++) {
+            published.set(i, -1);
+        }
+        bindHandlers(annotationScanner, beanFactory);
+    }
+
+    /** Publica a transição do pagamento depois do commit da transação corrente. */
+    public void publish(PaymentEventType type, Payment payment) {
+        long merchantId = payment.getMerchantId();
+        // a foto vai para os assinantes, que a guardam (cache, SSE): não dá para reaproveitar
+        PaymentResponse response = PaymentResponse.of(payment);
+        AfterCommit.run(() -> publishNow(type, merchantId, response));
+    }
+
+    public void subscribe(String name, Set<PaymentEventType> types, PaymentEventListener listener) {
+        var consumer = new Consumer(name, EnumSet.copyOf(types), listener, cursor.get());
+        consumers.add(consumer);
+        consumer.thread = Thread.ofVirtual().name("events-" + name).start(consumer::run);
+    }
+
+    /** Eventos publicados que o assinante mais lento ainda não consumiu. */
+    public long lag() {
+        long head = cursor.get();
+        return head - Math.min(minConsumed(), head);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        consumers.forEach(c -> LockSupport.unpark(c.thread));
+    }
+
+    void publishNow(PaymentEventType type, long merchantId, PaymentResponse payment) {
+        long seq = cursor.incrementAndGet();
+        // o slot só pode ser reescrito depois que todos consumiram a volta anterior
+        long wrapPoint = seq - ring.length;
+        while (wrapPoint > minConsumed() && running) {
+            LockSupport.parkNanos(1_000);
+        }
+        int index = (int) (seq & mask);
+        ring[index].set(seq, type, merchantId, payment);
+        published.lazySet(index, round(seq));
+        for (Consumer c : consumers) {
+            if (c.parked) {
+                LockSupport.unpark(c.thread);
+            }
+        }
+    }
+
+    private long minConsumed() {
+        long min = Long.MAX_VALUE;
+        for (Consumer c : consumers) {
+            min = Math.min(min, c.sequence.get());
+        }
+        return min;
+    }
+
+    // maior sequência contígua já publicada entre from e to
+    private long highestPublished(long from, long to) {
+        for (long s = from; s <= to; s++) {
+            if (published.get((int) (s & mask)) != round(s)) {
+                return s - 1;
+            }
+        }
+        return to;
+    }
+
+    private int round(long seq) {
+        return (int) (seq >>> shift);
+    }
+
+    private void bindHandlers(AnnotationScanner annotationScanner, AutowireCapableBeanFactory beanFactory) {
+        for (Map.Entry<String, List<Class<?>>> entry : annotationScanner.getEventHandlers().entrySet()) {
+            PaymentEventType type;
+            try {
+                type = PaymentEventType.valueOf(entry.getKey());
+            } catch (IllegalArgumentException e) {
+                System.err.println("[EVENTS] No event " + entry.getKey() + "; handlers " + entry.getValue() + " ignored.");
+                continue;
+            }
+            for (Class<?> clazz : entry.getValue()) {
+                if (!PaymentEventListener.class.isAssignableFrom(clazz)) {
+                    System.err.println("[EVENTS] " + clazz.getName() + " does not implement "
+                            + PaymentEventListener.class.getSimpleName() + "; ignored.");
+                    continue;
+                }
+                subscribe(clazz.getSimpleName(), EnumSet.of(type), (PaymentEventListener) beanFactory.createBean(clazz));
+            }
+        }
+    }
+
+    private final class Consumer {
+        final String name;
+        final EnumSet<PaymentEventType> types;
+        final PaymentEventListener listener;
+        // última sequência consumida
+        final AtomicLong sequence;
+        volatile boolean parked;
+        volatile Thread thread;
+
+        Consumer(String name, EnumSet<PaymentEventType> types, PaymentEventListener listener, long start) {
+            this.name = name;
+            this.types = types;
+            this.listener = listener;
+            this.sequence = new AtomicLong(start);
+        }
+
+        void run() {
+            long next = sequence.get() + 1;
+            while (true) {
+                long available = highestPublished(next, cursor.get());
+                if (available < next) {
+                    if (!running) {
+                        return;
+                    }
+                    parked = true;
+                    // confere de novo depois de anunciar: um publish no meio faria o unpark
+                    if (highestPublished(next, cursor.get()) < next) {
+                        LockSupport.parkNanos(this, 10_000_000);
+                    }
+                    parked = false;
+                    continue;
+                }
+                for (long s = next; s <= available; s++) {
+                    PaymentEvent event = ring[(int) (s & mask)];
+                    if (!types.contains(event.type())) {
+                        continue;
+                    }
+                    try {
+                        listener.onEvent(event);
+                    } catch (RuntimeException e) {
+                        System.err.println("[EVENTS] " + name + " failed on " + event.type() + ": " + e.getMessage());
+                    }
+                }
+                try {
+                    listener.onBatchEnd();
+                } catch (RuntimeException e) {
+                    System.err.println("[EVENTS] " + name + " failed on batch end: " + e.getMessage());
+                }
+                sequence.lazySet(available);
+                next = available + 1;
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package edu.ucsal.fiadopay.core.events;
+
+/**
+ * Assinante do {@link PaymentEventBus}. Classes anotadas com
+ * {@code @EventHandler} implementam esta interface e são ligadas uma vez no
+ * startup. Cada assinante tem a sua thread consumidora, mas o ring é
+ * compartilhado: um listener que fica um ring inteiro atrás faz quem publica
+ * esperar, e com ele o processamento e a expiração. Por isso {@code onEvent}
+ * não deve bloquear (I/O de rede, locks); trabalho lento vai para uma fila ou
+ * executor próprio, como faz o SSE do {@code PaymentStatusNotifier}.
+ */
+@FunctionalInterface
+public interface PaymentEventListener {
+
+    void onEvent(PaymentEvent event);
+
+    /** Chamado ao fim de cada lote consumido; útil para quem agrega (ex.: flush). */
+    default void onBatchEnd() {
+    }
+}
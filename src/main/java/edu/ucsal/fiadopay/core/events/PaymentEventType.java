@@ -0,0 +1,19 @@
+package edu.ucsal.fiadopay.core.events;
+
+import edu.ucsal.fiadopay.domain.Payment;
+
+/** Eventos publicados no {@link PaymentEventBus}; é o valor de {@code @EventHandler(event)}. */
+public enum PaymentEventType {
+    PAYMENT_CREATED, PAYMENT_APPROVED, PAYMENT_DECLINED, PAYMENT_EXPIRED, PAYMENT_REFUNDED;
+
+    /** Evento da transição para o status dado. */
+    public static PaymentEventType forStatus(Payment.Status status) {
+        return switch (status) {
+            case PENDING -> PAYMENT_CREATED;
+            case APPROVED -> PAYMENT_APPROVED;
+            case DECLINED -> PAYMENT_DECLINED;
+            case EXPIRED -> PAYMENT_EXPIRED;
+            case REFUNDED -> PAYMENT_REFUNDED;
+        };
+    }
+}
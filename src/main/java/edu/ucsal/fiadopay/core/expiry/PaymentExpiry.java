@@ -0,0 +1,131 @@
+package edu.ucsal.fiadopay.core.expiry;
+
+import edu.ucsal.fiadopay.core.WebhookDispatcher;
+import edu.ucsal.fiadopay.core.events.PaymentEventBus;
+import edu.ucsal.fiadopay.core.events.PaymentEventType;
+import edu.ucsal.fiadopay.core.outbox.Outbox;
+import edu.ucsal.fiadopay.domain.OutboxEvent;
+import edu.ucsal.fiadopay.domain.Payment;
+import edu.ucsal.fiadopay.payment.PaymentMethodRegistry;
+import edu.ucsal.fiadopay.payment.PaymentMethodType;
+import edu.ucsal.fiadopay.repo.PaymentRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Prazo e expiração de pagamentos PENDING.
+ *
+ * <p>Todo pagamento recebe um {@code expiresAt} na criação: o vencimento do
+ * próprio método (boleto) ou, para os demais, o TTL de pendência por método
+ * ({@code fiadopay.expiry.pending-ttl-ms}, ex.: {@code CARD=900000}), que
+ * cobre pagamentos perdidos pelo caminho em memória e pelo outbox.
+ *
+ * <p>A varredura lê só o trecho vencido do índice {@code (status, expiresAt)}
+ * com {@code FOR UPDATE SKIP LOCKED}, então o custo é proporcional ao que
+ * venceu e não ao tamanho da tabela, e várias instâncias dividem o trabalho.
+ * Cada lote vira um único UPDATE; webhooks e eventos saem na mesma transação.
+ */
+@Component
+public class PaymentExpiry {
+
+    private final PaymentRepository payments;
+    private final PaymentMethodRegistry methods;
+    private final WebhookDispatcher webhookDispatcher;
+    private final PaymentEventBus events;
+    private final Outbox outbox;
+    private final TransactionTemplate tx;
+    private final Map<PaymentMethodType, Long> pendingTtlMs;
+    private final int batchSize;
+    private final int maxBatchesPerSweep;
+
+    private final AtomicLong expired = new AtomicLong();
+
+    public PaymentExpiry(PaymentRepository payments,
+                         PaymentMethodRegistry methods,
+                         WebhookDispatcher webhookDispatcher,
+                         PaymentEventBus events,
+                         Outbox outbox,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${fiadopay.expiry.pending-ttl-ms:CARD=900000,PIX=900000,DEBIT=900000}") String pendingTtlMs,
+                         @Value("${fiadopay.expiry.batch-size:500}") int batchSize,
+                         @Value("${fiadopay.expiry.max-batches-per-sweep:20}") int maxBatchesPerSweep) {
+        this.payments = payments;
+        this.methods = methods;
+        this.webhookDispatcher = webhookDispatcher;
+        this.events = events;
+        this.outbox = outbox;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.pendingTtlMs = parseTtls(pendingTtlMs);
+        this.batchSize = batchSize;
+        this.maxBatchesPerSweep = maxBatchesPerSweep;
+    }
+
+    /** Prazo de um pagamento criado agora; null quando o método não expira. */
+    public Instant expiresAt(String method, Instant createdAt) {
+        Instant due = methods.handler(method).expiresAt(createdAt);
+        if (due != null) {
+            return due;
+        }
+        Long ttl = pendingTtlMs.get(PaymentMethodType.of(method));
+        return ttl == null ? null : createdAt.plusMillis(ttl);
+    }
+
+    public long expiredCount() {
+        return expired.get();
+    }
+
+    @Scheduled(fixedDelayString = "${fiadopay.expiry.sweep-interval-ms:5000}")
+    public void sweep() {
+        // limite por rodada: um acúmulo grande não monopoliza a thread do scheduler
+        for (int i = 0; i < maxBatchesPerSweep; i++) {
+            Integer n = tx.execute(status -> expireBatch(Instant.now()));
+            if (n == null || n < batchSize) {
+                return;
+            }
+        }
+    }
+
+    private int expireBatch(Instant now) {
+        List<Payment> due = payments.findDue(Payment.Status.PENDING, now, Limit.of(batchSize));
+        if (due.isEmpty()) {
+            return 0;
+        }
+        List<String> ids = due.stream().map(Payment::getId).toList();
+        // clearAutomatically: as entidades lidas ficam destacadas e não geram UPDATE por linha no flush
+        payments.transitionAll(ids, Payment.Status.PENDING, Payment.Status.EXPIRED, now);
+        outbox.completeAll(OutboxEvent.Type.PROCESS_PAYMENT, ids);
+
+        for (Payment p : due) {
+            p.setStatus(Payment.Status.EXPIRED);
+            p.setUpdatedAt(now);
+            events.publish(PaymentEventType.PAYMENT_EXPIRED, p);
+            webhookDispatcher.enqueuePaymentEvent(p);
+        }
+        expired.addAndGet(due.size());
+        System.out.println("[EXPIRY] " + due.size() + " payment(s) expired.");
+        return due.size();
+    }
+
+    private static Map<PaymentMethodType, Long> parseTtls(String spec) {
+        Map<PaymentMethodType, Long> ttls = new EnumMap<>(PaymentMethodType.class);
+        for (String entry : spec.split(",")) {
+            if (entry.isBlank()) continue;
+            String[] kv = entry.split("=", 2);
+            if (kv.length != 2) {
+                throw new IllegalArgumentException("Invalid fiadopay.expiry.pending-ttl-ms entry: " + entry);
+            }
+            ttls.put(PaymentMethodType.of(kv[0].trim()), Long.valueOf(kv[1].trim()));
+        }
+        return ttls;
+    }
+}
@@ -0,0 +1,10 @@
+package edu.ucsal.fiadopay.core.id;
+
+/**
+ * Gera identificadores públicos (pay_, ref_, evt_...). A estratégia é
+ * escolhida por {@code fiadopay.id.strategy}.
+ */
+public interface IdGenerator {
+
+    String next(String prefix);
+}
@@ -0,0 +1,12 @@
+package edu.ucsal.fiadopay.core.id;
+
+import java.util.UUID;
+
+/** Estratégia antiga (UUID aleatório), mantida para comparação e compatibilidade. */
+public class RandomIdGenerator implements IdGenerator {
+
+    @Override
+    public String next(String prefix) {
+        return prefix + UUID.randomUUID().toString().replace("-", "");
+    }
+}
@@ -0,0 +1,67 @@
+package edu.ucsal.fiadopay.core.id;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * IDs de 63 bits ordenados no tempo: 41 bits de milissegundos desde
+ * 2025-01-01 (~69 anos), 10 bits de nó e 12 bits de sequência por ms.
+ * O último (ms, sequência) fica num único AtomicLong atualizado por CAS, sem
+ * lock. Se a sequência estoura ou o relógio volta, o gerador avança o ms
+ * lógico em vez de esperar, mantendo a ordem monotônica.
+ *
+ * <p>A saída é o prefixo seguido de 13 caracteres em base32 Crockford com
+ * zeros à esquerda, então a ordem lexicográfica segue a ordem de geração.
+ */
+public class SnowflakeIdGenerator implements IdGenerator {
+
+    static final long EPOCH_MS = Instant.parse("2025-01-01T00:00:00Z").toEpochMilli();
+
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int ENCODED_LENGTH = 13;
+
+    private final long nodeBits;
+    // (ms lógico << SEQUENCE_BITS) | sequência do último ID emitido
+    private final AtomicLong last = new AtomicLong();
+
+    public SnowflakeIdGenerator(long nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE) {
+            throw new IllegalArgumentException("fiadopay.id.node-id must be between 0 and " + MAX_NODE);
+        }
+        this.nodeBits = nodeId << SEQUENCE_BITS;
+    }
+
+    @Override
+    public String next(String prefix) {
+        return prefix + encode(nextLong());
+    }
+
+    public long nextLong() {
+        long now = System.currentTimeMillis() - EPOCH_MS;
+        while (true) {
+            long prev = last.get();
+            long prevMs = prev >>> SEQUENCE_BITS;
+            long next = now > prevMs
+                    ? now << SEQUENCE_BITS
+                    : prev + 1; // mesmo ms (ou relógio atrasado): próxima sequência, transbordando para o ms seguinte
+            if (last.compareAndSet(prev, next)) {
+                long ms = next >>> SEQUENCE_BITS;
+                return (ms << (NODE_BITS + SEQUENCE_BITS)) | nodeBits | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    static String encode(long value) {
+        char[] out = new char[ENCODED_LENGTH];
+        for (int i = ENCODED_LENGTH - 1; i >= 0; i--) {
+            out[i] = ALPHABET[(int) (value & 31)];
+            value >>>= 5;
+        }
+        return new String(out);
+    }
+}
@@ -0,0 +1,199 @@
+package edu.ucsal.fiadopay.core.outbox;
+
+import edu.ucsal.fiadopay.core.AsyncExecutor;
+import edu.ucsal.fiadopay.domain.OutboxEvent;
+import edu.ucsal.fiadopay.repo.OutboxEventRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Outbox transacional do processamento e dos webhooks.
+ *
+ * <p>Quem gera trabalho grava a linha na própria transação já com um lease
+ * ({@code availableAt} no futuro) e, depois do commit, executa pelo caminho
+ * rápido em memória; ao terminar, a linha é removida. Se a instância cair
+ * antes disso, o lease vence e o {@link #poll()} de qualquer instância
+ * reivindica a linha com {@code FOR UPDATE SKIP LOCKED}, renova o lease e
+ * entrega ao handler do tipo. A entrega é pelo menos uma vez: os handlers
+ * precisam tolerar repetição.
+ */
+@Component
+public class Outbox {
+
+    private final OutboxEventRepository events;
+    private final AsyncExecutor asyncExecutor;
+    private final TransactionTemplate tx;
+    private final long leaseMs;
+    private final int batchSize;
+    private final int maxAttempts;
+
+    private final Map<OutboxEvent.Type, Handler> handlers = new EnumMap<>(OutboxEvent.Type.class);
+    private final AtomicLong reclaimed = new AtomicLong();
+
+    public Outbox(OutboxEventRepository events,
+                  AsyncExecutor asyncExecutor,
+                  PlatformTransactionManager transactionManager,
+                  @Value("${fiadopay.outbox.lease-ms:300000}") long leaseMs,
+                  @Value("${fiadopay.outbox.batch-size:100}") int batchSize,
+                  @Value("${fiadopay.outbox.max-attempts:10}") int maxAttempts) {
+        this.events = events;
+        this.asyncExecutor = asyncExecutor;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.leaseMs = leaseMs;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * Registra quem executa as linhas reivindicadas de um tipo (feito no
+     * construtor do dono) e a lane onde elas rodam, que limita quantas o
+     * poller reivindica por vez.
+     */
+    public synchronized void register(OutboxEvent.Type type, AsyncExecutor.Lane lane, Consumer<OutboxEvent> handler) {
+        handlers.put(type, new Handler(lane, handler));
+    }
+
+    /**
+     * Grava uma linha na transação corrente, reservada para o caminho rápido
+     * por {@code delayMs} + lease.
+     */
+    public OutboxEvent append(OutboxEvent.Type type, long merchantId, String paymentId, String reference, long delayMs) {
+        return events.save(newEvent(type, merchantId, paymentId, reference, delayMs));
+    }
+
+    /** Como o anterior, para linhas que levam dados próprios (ex.: a foto do webhook). */
+    public OutboxEvent append(OutboxEvent.OutboxEventBuilder row, long delayMs) {
+        return events.save(lease(row, delayMs));
+    }
+
+    public void appendAll(OutboxEvent.Type type, long merchantId, List<String> paymentIds, long delayMs) {
+        var batch = new ArrayList<OutboxEvent>(paymentIds.size());
+        for (String paymentId : paymentIds) {
+            batch.add(newEvent(type, merchantId, paymentId, null, delayMs));
+        }
+        events.saveAll(batch);
+    }
+
+    /** Remove a linha na transação corrente, junto com o efeito do trabalho. */
+    public void complete(OutboxEvent.Type type, String paymentId) {
+        events.deleteByTypeAndPaymentId(type, paymentId);
+    }
+
+    public void completeAll(OutboxEvent.Type type, Collection<String> paymentIds) {
+        events.deleteByTypeAndPaymentIdIn(type, paymentIds);
+    }
+
+    public void complete(long id) {
+        events.deleteById(id);
+    }
+
+    /** Devolve ao poller o trabalho que o caminho rápido não conseguiu agendar. */
+    public void release(OutboxEvent.Type type, Collection<String> paymentIds) {
+        tx.executeWithoutResult(s -> events.releaseAll(type, paymentIds, Instant.now()));
+    }
+
+    public void release(long id) {
+        tx.executeWithoutResult(s -> events.release(id, Instant.now()));
+    }
+
+    /**
+     * Grava as tentativas de entrega do webhook e estende o lease até depois
+     * da próxima tentativa: após uma queda, o poller retoma a contagem e
+     * respeita o backoff.
+     */
+    public void recordDeliveryAttempts(long id, int deliveryAttempts, Instant nextAttemptAt) {
+        tx.executeWithoutResult(s -> events.recordDeliveryAttempts(id, deliveryAttempts, nextAttemptAt.plusMillis(leaseMs)));
+    }
+
+    public long reclaimedCount() {
+        return reclaimed.get();
+    }
+
+    @Scheduled(fixedDelayString = "${fiadopay.outbox.poll-interval-ms:1000}")
+    public void poll() {
+        handlers.forEach(this::poll);
+    }
+
+    // cada tipo só reivindica o que cabe na própria lane: webhooks acumulados
+    // não travam a retomada de pagamentos, e vice-versa
+    private void poll(OutboxEvent.Type type, Handler handler) {
+        int claimed;
+        do {
+            int budget = Math.min(batchSize, freeSlots(handler.lane()));
+            if (budget <= 0) {
+                return;
+            }
+            List<OutboxEvent> batch = claim(type, budget);
+            claimed = batch.size();
+            for (OutboxEvent e : batch) {
+                dispatch(e, handler);
+            }
+        } while (claimed > 0 && claimed == batchSize);
+    }
+
+    private List<OutboxEvent> claim(OutboxEvent.Type type, int limit) {
+        return tx.execute(status -> {
+            Instant now = Instant.now();
+            List<OutboxEvent> rows = events.findClaimable(type, now, Limit.of(limit));
+            List<OutboxEvent> live = new ArrayList<>(rows.size());
+            for (OutboxEvent e : rows) {
+                if (e.getAttempts() >= maxAttempts) {
+                    System.err.println("[OUTBOX] Giving up on " + e.getType() + " " + e.getPaymentId()
+                            + " after " + e.getAttempts() + " attempts.");
+                    events.delete(e);
+                    continue;
+                }
+                // renova o lease: as alterações saem em batch no commit
+                e.setAttempts(e.getAttempts() + 1);
+                e.setAvailableAt(now.plusMillis(leaseMs));
+                live.add(e);
+            }
+            return live;
+        });
+    }
+
+    private void dispatch(OutboxEvent e, Handler handler) {
+        reclaimed.incrementAndGet();
+        try {
+            handler.action().accept(e);
+        } catch (RuntimeException ex) {
+            // a linha continua com lease; volta ao poller quando ele vencer
+            System.err.println("[OUTBOX] " + e.getType() + " " + e.getPaymentId() + " failed: " + ex.getMessage());
+        }
+    }
+
+    private int freeSlots(AsyncExecutor.Lane lane) {
+        return asyncExecutor.capacity(lane) - asyncExecutor.inFlight(lane);
+    }
+
+    private OutboxEvent newEvent(OutboxEvent.Type type, long merchantId, String paymentId, String reference, long delayMs) {
+        return lease(OutboxEvent.builder()
+                .type(type)
+                .merchantId(merchantId)
+                .paymentId(paymentId)
+                .reference(reference), delayMs);
+    }
+
+    private OutboxEvent lease(OutboxEvent.OutboxEventBuilder row, long delayMs) {
+        Instant now = Instant.now();
+        return row
+                .availableAt(now.plusMillis(delayMs + leaseMs))
+                .createdAt(now)
+                .build();
+    }
+
+    private record Handler(AsyncExecutor.Lane lane, Consumer<OutboxEvent> action) {}
+}
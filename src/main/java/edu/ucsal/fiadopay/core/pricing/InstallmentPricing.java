@@ -0,0 +1,88 @@
+package edu.ucsal.fiadopay.core.pricing;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Juros compostos do parcelamento com tabelas de fatores exatos
+ * (1 + taxa)^n, n = 1..12, pré-calculadas por taxa. As taxas por método
+ * ({@code fiadopay.pricing.method-rates}, ex.: {@code CARD=1.0}) são
+ * carregadas no startup; a taxa própria de um merchant, quando definida,
+ * substitui a do método e tem a sua tabela montada no primeiro uso.
+ */
+@Component
+public class InstallmentPricing {
+
+    public static final int MAX_INSTALLMENTS = 12;
+
+    private final Map<String, Double> methodRates;
+    private final ConcurrentHashMap<Double, BigDecimal[]> tables = new ConcurrentHashMap<>();
+
+    public InstallmentPricing(@Value("${fiadopay.pricing.method-rates:CARD=1.0}") String methodRates) {
+        this.methodRates = parseRates(methodRates);
+        this.methodRates.values().forEach(rate -> tables.computeIfAbsent(rate, InstallmentPricing::buildTable));
+    }
+
+    /** Taxa mensal (%) e total com juros de um novo pagamento. */
+    public record Quote(Double monthlyInterest, BigDecimal totalWithInterest) {}
+
+    public Quote quote(Double merchantRate, String method, BigDecimal amount, int installments) {
+        Double methodRate = methodRates.get(method.toUpperCase(Locale.ROOT));
+        if (methodRate == null || installments <= 1) {
+            return new Quote(null, amount);
+        }
+        Double rate = merchantRate != null ? merchantRate : methodRate;
+        if (rate <= 0) {
+            return new Quote(null, amount);
+        }
+        return new Quote(rate, total(amount, rate, installments));
+    }
+
+    public BigDecimal total(BigDecimal amount, Double monthlyInterest, int installments) {
+        if (installments <= 1 || monthlyInterest == null || monthlyInterest <= 0) {
+            return amount.setScale(2, RoundingMode.HALF_UP);
+        }
+        return amount.multiply(factor(monthlyInterest, installments)).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    public BigDecimal factor(double monthlyInterest, int installments) {
+        if (installments > MAX_INSTALLMENTS) {
+            return base(monthlyInterest).pow(installments);
+        }
+        return tables.computeIfAbsent(monthlyInterest, InstallmentPricing::buildTable)[installments];
+    }
+
+    private static BigDecimal[] buildTable(Double monthlyInterest) {
+        BigDecimal base = base(monthlyInterest);
+        BigDecimal[] table = new BigDecimal[MAX_INSTALLMENTS + 1];
+        table[0] = BigDecimal.ONE;
+        for (int n = 1; n <= MAX_INSTALLMENTS; n++) {
+            table[n] = table[n - 1].multiply(base);
+        }
+        return table;
+    }
+
+    private static BigDecimal base(double monthlyInterest) {
+        // taxa em % ao mês: 1.0 → 1.01
+        return BigDecimal.ONE.add(BigDecimal.valueOf(monthlyInterest).movePointLeft(2));
+    }
+
+    private static Map<String, Double> parseRates(String spec) {
+        Map<String, Double> rates = new ConcurrentHashMap<>();
+        for (String entry : spec.split(",")) {
+            if (entry.isBlank()) continue;
+            String[] kv = entry.split("=", 2);
+            if (kv.length != 2) {
+                throw new IllegalArgumentException("Invalid fiadopay.pricing.method-rates entry: " + entry);
+            }
+            rates.put(kv[0].trim().toUpperCase(Locale.ROOT), Double.valueOf(kv[1].trim()));
+        }
+        return rates;
+    }
+}
@@ -0,0 +1,21 @@
+package edu.ucsal.fiadopay.core.ratelimit;
+
+/**
+ * Lançada quando o merchant esgota o balde de um endpoint; respondida com
+ * 429 e {@code Retry-After}.
+ */
+public class RateLimitExceededException extends RuntimeException {
+
+    private final String endpoint;
+    private final long retryAfterSeconds;
+
+    public RateLimitExceededException(String endpoint, long retryAfterSeconds) {
+        super("Rate limit exceeded for " + endpoint);
+        this.endpoint = endpoint;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public String getEndpoint() { return endpoint; }
+
+    public long getRetryAfterSeconds() { return retryAfterSeconds; }
+}
@@ -0,0 +1,57 @@
+package edu.ucsal.fiadopay.core.ratelimit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Baldes por merchant e endpoint. O caminho comum é uma leitura sem lock no
+ * mapa seguida de um CAS no balde; o mapa só é escrito na primeira
+ * requisição do par ou quando o limite do merchant muda, e nesse caso o
+ * balde é recriado cheio.
+ */
+@Component
+public class RateLimiter {
+
+    private record Key(long merchantId, String endpoint) {}
+
+    private final double burstSeconds;
+    private final ConcurrentHashMap<Key, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    public RateLimiter(@Value("${fiadopay.rate-limit.burst-seconds:2.0}") double burstSeconds) {
+        this.burstSeconds = burstSeconds;
+    }
+
+    /**
+     * Consome uma ficha do balde do par com o limite atual do merchant.
+     *
+     * @return 0 quando aceita, senão os segundos (arredondados para cima) até a próxima ficha
+     */
+    public long tryAcquire(long merchantId, String endpoint, int perSecond) {
+        if (perSecond <= 0) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        Key key = new Key(merchantId, endpoint);
+        TokenBucket bucket = buckets.get(key);
+        if (bucket == null || bucket.perSecond() != perSecond) {
+            bucket = buckets.compute(key, (k, b) ->
+                    b != null && b.perSecond() == perSecond ? b : new TokenBucket(perSecond, burst(perSecond), now));
+        }
+        long waitNanos = bucket.tryAcquire(now);
+        if (waitNanos == 0) {
+            return 0;
+        }
+        return Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    public int bucketCount() {
+        return buckets.size();
+    }
+
+    private int burst(int perSecond) {
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE, Math.round(perSecond * burstSeconds)));
+    }
+}
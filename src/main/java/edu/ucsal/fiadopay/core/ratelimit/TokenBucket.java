@@ -0,0 +1,53 @@
+package edu.ucsal.fiadopay.core.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket sem lock no formato GCRA: em vez de contar fichas, guarda
+ * apenas o instante teórico em que o balde estaria cheio de novo
+ * ({@code tat}). Cada requisição empurra esse instante em um intervalo
+ * (1s / taxa) e é aceita enquanto ele não passar de {@code burst}
+ * intervalos à frente de agora. Consumir é um único CAS em um long.
+ */
+public final class TokenBucket {
+
+    private final int perSecond;
+    private final int burst;
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final AtomicLong tat;
+
+    public TokenBucket(int perSecond, int burst, long nowNanos) {
+        if (perSecond <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("perSecond and burst must be positive");
+        }
+        this.perSecond = perSecond;
+        this.burst = burst;
+        this.intervalNanos = 1_000_000_000L / perSecond;
+        this.toleranceNanos = intervalNanos * burst;
+        this.tat = new AtomicLong(nowNanos);
+    }
+
+    /** Consome uma ficha: 0 quando aceita, senão os nanos até haver ficha disponível. */
+    public long tryAcquire(long nowNanos) {
+        while (true) {
+            long current = tat.get();
+            long next = Math.max(current, nowNanos) + intervalNanos;
+            long ahead = next - nowNanos;
+            if (ahead > toleranceNanos) {
+                return ahead - toleranceNanos;
+            }
+            if (tat.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    public int perSecond() {
+        return perSecond;
+    }
+
+    public int burst() {
+        return burst;
+    }
+}
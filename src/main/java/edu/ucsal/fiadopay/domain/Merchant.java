@@ -20,6 +20,19 @@ public class Merchant {
 
     private String webhookUrl;
 
+    // opt-in: agrupa eventos do mesmo webhookUrl em um único POST
+    @Column(nullable=false)
+    private boolean webhookBatching;
+
+    // juros mensais (%) próprios do merchant; null usa a taxa do método
+    private Double monthlyInterestRate;
+
+    // peso no escalonamento justo entre merchants (tarefas por rodada); null = 1
+    private Integer processingWeight;
+
+    // requisições por segundo em cada endpoint limitado; null usa o padrão, 0 = sem limite
+    private Integer rateLimitPerSecond;
+
     @Enumerated(EnumType.STRING)
     private Status status = Status.ACTIVE;
 
@@ -0,0 +1,60 @@
+package edu.ucsal.fiadopay.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Trabalho pendente gravado na mesma transação que o originou. A linha só é
+ * removida quando o trabalho termina; {@code availableAt} funciona como lease:
+ * enquanto estiver no futuro, nenhum poller a reivindica.
+ */
+@Entity
+@Data @NoArgsConstructor @AllArgsConstructor @Builder
+@Table(indexes = { @Index(columnList = "type,availableAt"), @Index(columnList = "type,paymentId") })
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_event_seq")
+    @SequenceGenerator(name = "outbox_event_seq", sequenceName = "outbox_event_seq", allocationSize = 50)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Type type;
+
+    @Column(nullable = false)
+    private Long merchantId;
+
+    @Column(nullable = false)
+    private String paymentId;
+
+    @Column(length = 64)
+    private String reference; // eventId do webhook, estável entre reentregas
+
+    @Column(nullable = false)
+    private Instant availableAt;
+
+    private int attempts;
+
+    private int deliveryAttempts; // tentativas HTTP do webhook, preservadas entre reentregas
+
+    // foto do webhook na transição (só PAYMENT_WEBHOOK): a reentrega envia exatamente isto
+    private String webhookUrl;
+
+    @Column(length = 20)
+    private String eventStatus;
+
+    @Column(precision = 19, scale = 2)
+    private BigDecimal eventAmount;
+
+    @Column(precision = 19, scale = 2)
+    private BigDecimal eventTotalWithInterest;
+
+    private Instant eventUpdatedAt;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    public enum Type { PROCESS_PAYMENT, PAYMENT_WEBHOOK }
+}
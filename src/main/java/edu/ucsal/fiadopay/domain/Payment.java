@@ -8,7 +8,11 @@ import java.time.Instant;
 @Entity
 @Data @NoArgsConstructor @AllArgsConstructor @Builder
 @Table(
-        indexes = { @Index(columnList="merchantId"), @Index(columnList="status") },
+        indexes = {
+                // listagem por keyset: posiciona e ordena por (createdAt, id); as colunas vêm da tabela
+                @Index(name = "idx_payment_merchant_created", columnList="merchantId, createdAt, id"),
+                @Index(name = "idx_payment_status_expires", columnList="status, expiresAt")
+        },
         uniqueConstraints = {
                 @UniqueConstraint(name = "uk_payment_merchant_idempotency", columnNames = {"merchantId", "idempotencyKey"})
         }
@@ -47,6 +51,9 @@ public class Payment {
     @Column(nullable = false)
     private Instant updatedAt;
 
+    // vencimento (ex.: boleto); null para métodos que não vencem
+    private Instant expiresAt;
+
     @Column(length = 64)
     private String idempotencyKey;
 
@@ -1,25 +1,30 @@
 package edu.ucsal.fiadopay.domain;
 
-import java.time.Instant;
-
-import jakarta.persistence.Entity;
-import jakarta.persistence.Id;
+import jakarta.persistence.*;
 
 import java.time.Instant;
-import java.util.UUID;
 
 @Entity
+@Table(indexes = { @Index(columnList = "paymentId") })
 public class WebhookDelivery {
 
+    // sequence com pooled allocation: ids crescentes e compatíveis com batch insert
     @Id
-    private String id = UUID.randomUUID().toString();
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "webhook_delivery_seq")
+    @SequenceGenerator(name = "webhook_delivery_seq", sequenceName = "webhook_delivery_seq", allocationSize = 50)
+    private Long id;
 
     private String paymentId;
     private boolean success;
     private String errorMessage;
     private Instant at;
 
-    public String getId() { return id; }
+    // estado de retentativa: cada tentativa gera um registro
+    private int attempt;
+    private Integer statusCode;
+    private Instant nextAttemptAt;
+
+    public Long getId() { return id; }
 
     public String getPaymentId() { return paymentId; }
     public void setPaymentId(String paymentId) { this.paymentId = paymentId; }
@@ -32,4 +37,13 @@ public class WebhookDelivery {
 
     public Instant getAt() { return at; }
     public void setAt(Instant at) { this.at = at; }
+
+    public int getAttempt() { return attempt; }
+    public void setAttempt(int attempt) { this.attempt = attempt; }
+
+    public Integer getStatusCode() { return statusCode; }
+    public void setStatusCode(Integer statusCode) { this.statusCode = statusCode; }
+
+    public Instant getNextAttemptAt() { return nextAttemptAt; }
+    public void setNextAttemptAt(Instant nextAttemptAt) { this.nextAttemptAt = nextAttemptAt; }
 }
@@ -1,11 +1,43 @@
 package edu.ucsal.fiadopay.payment;
 
 import edu.ucsal.fiadopay.annotations.PaymentMethod;
+import edu.ucsal.fiadopay.domain.Payment;
+import org.springframework.beans.factory.annotation.Value;
 
+import java.time.Instant;
+
+/**
+ * Boleto: fica PENDING até a compensação simulada
+ * ({@code fiadopay.boleto.settlement-delay-ms}) e vence em
+ * {@code fiadopay.boleto.ttl-ms}; compensado depois do vencimento, expira.
+ */
 @PaymentMethod(type = "BOLETO")
-public class BoletoPaymentProcessor {
+public class BoletoPaymentProcessor implements PaymentMethodHandler {
+
+    private final long settlementDelayMs;
+    private final long ttlMs;
+
+    public BoletoPaymentProcessor(@Value("${fiadopay.boleto.settlement-delay-ms:10000}") long settlementDelayMs,
+                                  @Value("${fiadopay.boleto.ttl-ms:259200000}") long ttlMs) {
+        this.settlementDelayMs = settlementDelayMs;
+        this.ttlMs = ttlMs;
+    }
+
+    @Override
+    public long processingDelayMs() {
+        return settlementDelayMs;
+    }
+
+    @Override
+    public Instant expiresAt(Instant createdAt) {
+        return createdAt.plusMillis(ttlMs);
+    }
 
-    public String process(double amount, String currency) {
-        return "BOLETO generated, waiting payment";
+    @Override
+    public Payment.Status settle(Payment payment, Instant now) {
+        if (payment.getExpiresAt() != null && now.isAfter(payment.getExpiresAt())) {
+            return Payment.Status.EXPIRED;
+        }
+        return Payment.Status.APPROVED;
     }
 }
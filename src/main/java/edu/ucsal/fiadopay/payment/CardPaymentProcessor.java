@@ -1,11 +1,33 @@
 package edu.ucsal.fiadopay.payment;
 
 import edu.ucsal.fiadopay.annotations.PaymentMethod;
+import edu.ucsal.fiadopay.domain.Payment;
+import org.springframework.beans.factory.annotation.Value;
 
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+
+/** Cartão: autorização simulada pelo processing-delay (com jitter opcional). */
 @PaymentMethod(type = "CARD")
-public class CardPaymentProcessor {
+public class CardPaymentProcessor implements PaymentMethodHandler {
+
+    private final long processingDelayMs;
+    private final long processingJitterMs;
+
+    public CardPaymentProcessor(@Value("${fiadopay.processing-delay-ms}") long processingDelayMs,
+                                @Value("${fiadopay.processing-jitter-ms:0}") long processingJitterMs) {
+        this.processingDelayMs = processingDelayMs;
+        this.processingJitterMs = processingJitterMs;
+    }
+
+    @Override
+    public long processingDelayMs() {
+        return processingDelayMs
+                + (processingJitterMs > 0 ? ThreadLocalRandom.current().nextLong(processingJitterMs + 1) : 0);
+    }
 
-    public String process(double amount, String currency) {
-        return String.format("processed card payment: %.2f %s", amount, currency);
+    @Override
+    public Payment.Status settle(Payment payment, Instant now) {
+        return Payment.Status.APPROVED;
     }
 }
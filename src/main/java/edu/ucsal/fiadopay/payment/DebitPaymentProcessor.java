@@ -1,11 +1,21 @@
 package edu.ucsal.fiadopay.payment;
 
 import edu.ucsal.fiadopay.annotations.PaymentMethod;
+import edu.ucsal.fiadopay.domain.Payment;
 
+import java.time.Instant;
+
+/** Débito: aprovado na hora, sem o atraso simulado do cartão. */
 @PaymentMethod(type = "DEBIT")
-public class DebitPaymentProcessor {
+public class DebitPaymentProcessor implements PaymentMethodHandler {
+
+    @Override
+    public long processingDelayMs() {
+        return 0;
+    }
 
-    public String process(double amount, String currency) {
-        return "DEBIT transaction approved (instant)";
+    @Override
+    public Payment.Status settle(Payment payment, Instant now) {
+        return Payment.Status.APPROVED;
     }
 }
@@ -0,0 +1,25 @@
+package edu.ucsal.fiadopay.payment;
+
+import edu.ucsal.fiadopay.domain.Payment;
+
+import java.time.Instant;
+
+/**
+ * SPI de um método de pagamento. As implementações são classes anotadas com
+ * {@code @PaymentMethod}, criadas uma vez pelo {@link PaymentMethodRegistry}
+ * com injeção de dependências do Spring (ex.: {@code @Value} no construtor).
+ * O antifraude roda antes, igual para todos os métodos.
+ */
+public interface PaymentMethodHandler {
+
+    /** Espera entre a criação e o processamento; 0 processa assim que houver vaga na lane. */
+    long processingDelayMs();
+
+    /** Vencimento de um pagamento criado agora; null quando o método não vence. */
+    default Instant expiresAt(Instant createdAt) {
+        return null;
+    }
+
+    /** Status final de um pagamento aprovado pelo antifraude. */
+    Payment.Status settle(Payment payment, Instant now);
+}
@@ -0,0 +1,42 @@
+package edu.ucsal.fiadopay.payment;
+
+import edu.ucsal.fiadopay.core.AnnotationScanner;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Tabela de despacho dos métodos de pagamento, montada uma vez a partir das
+ * classes {@code @PaymentMethod} do {@link AnnotationScanner}. Falha no
+ * startup se algum {@link PaymentMethodType} ficar sem handler, então o
+ * caminho de processamento nunca encontra um método desconhecido.
+ */
+@Component
+public class PaymentMethodRegistry {
+
+    private final EnumMap<PaymentMethodType, PaymentMethodHandler> handlers = new EnumMap<>(PaymentMethodType.class);
+
+    public PaymentMethodRegistry(AnnotationScanner annotationScanner, AutowireCapableBeanFactory beanFactory) {
+        for (Map.Entry<String, Class<?>> entry : annotationScanner.getPaymentMethods().entrySet()) {
+            Class<?> clazz = entry.getValue();
+            if (!PaymentMethodHandler.class.isAssignableFrom(clazz)) {
+                throw new IllegalStateException(clazz.getName() + " is annotated with @PaymentMethod but does not implement "
+                        + PaymentMethodHandler.class.getSimpleName());
+            }
+            PaymentMethodType type = PaymentMethodType.valueOf(entry.getKey());
+            handlers.put(type, (PaymentMethodHandler) beanFactory.createBean(clazz));
+        }
+        for (PaymentMethodType type : PaymentMethodType.values()) {
+            if (!handlers.containsKey(type)) {
+                throw new IllegalStateException("No @PaymentMethod handler for " + type);
+            }
+        }
+        System.out.println("[PAYMENT-METHODS] Handlers: " + handlers.keySet());
+    }
+
+    public PaymentMethodHandler handler(String method) {
+        return handlers.get(PaymentMethodType.of(method));
+    }
+}
@@ -0,0 +1,12 @@
+package edu.ucsal.fiadopay.payment;
+
+import java.util.Locale;
+
+/** Métodos aceitos pelo gateway; a chave de {@code @PaymentMethod(type)} é o nome da constante. */
+public enum PaymentMethodType {
+    CARD, PIX, DEBIT, BOLETO;
+
+    public static PaymentMethodType of(String method) {
+        return valueOf(method.toUpperCase(Locale.ROOT));
+    }
+}
@@ -1,11 +1,21 @@
 package edu.ucsal.fiadopay.payment;
 
 import edu.ucsal.fiadopay.annotations.PaymentMethod;
+import edu.ucsal.fiadopay.domain.Payment;
 
+import java.time.Instant;
+
+/** PIX: liquidação instantânea, sem o atraso simulado do cartão. */
 @PaymentMethod(type = "PIX")
-public class PixPaymentProcessor {
+public class PixPaymentProcessor implements PaymentMethodHandler {
+
+    @Override
+    public long processingDelayMs() {
+        return 0;
+    }
 
-    public String process(double amount, String currency) {
-        return "PIX payment confirmed instantly";
+    @Override
+    public Payment.Status settle(Payment payment, Instant now) {
+        return Payment.Status.APPROVED;
     }
 }
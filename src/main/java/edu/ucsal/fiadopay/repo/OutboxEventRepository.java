@@ -0,0 +1,43 @@
+package edu.ucsal.fiadopay.repo;
+import edu.ucsal.fiadopay.domain.OutboxEvent;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+  // lock.timeout -2 = SKIP LOCKED: linhas já travadas por outra instância são puladas
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+  @Query("select e from OutboxEvent e where e.type = :type and e.availableAt <= :now order by e.availableAt")
+  List<OutboxEvent> findClaimable(@Param("type") OutboxEvent.Type type, @Param("now") Instant now, Limit limit);
+
+  @Modifying
+  @Query("delete from OutboxEvent e where e.type = :type and e.paymentId = :paymentId")
+  int deleteByTypeAndPaymentId(@Param("type") OutboxEvent.Type type, @Param("paymentId") String paymentId);
+
+  @Modifying
+  @Query("delete from OutboxEvent e where e.type = :type and e.paymentId in :paymentIds")
+  int deleteByTypeAndPaymentIdIn(@Param("type") OutboxEvent.Type type, @Param("paymentIds") Collection<String> paymentIds);
+
+  // devolução por falta de vaga não conta como tentativa
+  @Modifying
+  @Query("update OutboxEvent e set e.availableAt = :at, e.attempts = case when e.attempts > 0 then e.attempts - 1 else 0 end "
+      + "where e.type = :type and e.paymentId in :paymentIds")
+  int releaseAll(@Param("type") OutboxEvent.Type type, @Param("paymentIds") Collection<String> paymentIds,
+                 @Param("at") Instant at);
+
+  @Modifying
+  @Query("update OutboxEvent e set e.availableAt = :at, e.attempts = case when e.attempts > 0 then e.attempts - 1 else 0 end "
+      + "where e.id = :id")
+  int release(@Param("id") Long id, @Param("at") Instant at);
+
+  @Modifying
+  @Query("update OutboxEvent e set e.deliveryAttempts = :deliveryAttempts, e.availableAt = :availableAt where e.id = :id")
+  int recordDeliveryAttempts(@Param("id") Long id, @Param("deliveryAttempts") int deliveryAttempts,
+                             @Param("availableAt") Instant availableAt);
+}
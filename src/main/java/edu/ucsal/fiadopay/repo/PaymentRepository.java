@@ -1,7 +1,31 @@
 package edu.ucsal.fiadopay.repo;
 import edu.ucsal.fiadopay.domain.Payment;
-import org.springframework.data.jpa.repository.JpaRepository;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
-public interface PaymentRepository extends JpaRepository<Payment, String> {
+public interface PaymentRepository extends JpaRepository<Payment, String>, PaymentRepositoryCustom {
   Optional<Payment> findByIdempotencyKeyAndMerchantId(String ik, Long mid);
+  List<Payment> findByMerchantIdAndIdempotencyKeyIn(Long mid, Collection<String> keys);
+
+  // trava a linha: processamento e expiração não sobrescrevem a transição um do outro
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("select p from Payment p where p.id = :id")
+  Optional<Payment> findByIdForUpdate(@Param("id") String id);
+
+  // varre só o trecho vencido do índice (status, expiresAt); SKIP LOCKED pula o que está em processamento
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+  @Query("select p from Payment p where p.status = :status and p.expiresAt <= :now order by p.expiresAt")
+  List<Payment> findDue(@Param("status") Payment.Status status, @Param("now") Instant now, Limit limit);
+
+  @Modifying(clearAutomatically = true)
+  @Query("update Payment p set p.status = :to, p.updatedAt = :now where p.id in :ids and p.status = :from")
+  int transitionAll(@Param("ids") Collection<String> ids, @Param("from") Payment.Status from,
+                    @Param("to") Payment.Status to, @Param("now") Instant now);
 }
@@ -0,0 +1,16 @@
+package edu.ucsal.fiadopay.repo;
+import edu.ucsal.fiadopay.controller.PaymentSummary;
+import edu.ucsal.fiadopay.domain.Payment;
+import java.time.Instant;
+import java.util.List;
+public interface PaymentRepositoryCustom {
+  /** Insere pagamentos novos via persist (sem o SELECT do merge), em lotes JDBC. */
+  void insertAll(List<Payment> payments);
+
+  /**
+   * Página de pagamentos do merchant em ordem (createdAt, id), a partir da
+   * posição (afterCreatedAt, afterId) exclusiva; filtros nulos são omitidos.
+   */
+  List<PaymentSummary> findPage(long merchantId, Payment.Status status, Instant from, Instant to,
+                                Instant afterCreatedAt, String afterId, int limit);
+}
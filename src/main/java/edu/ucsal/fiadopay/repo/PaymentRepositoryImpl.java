@@ -0,0 +1,60 @@
+package edu.ucsal.fiadopay.repo;
+
+import edu.ucsal.fiadopay.controller.PaymentSummary;
+import edu.ucsal.fiadopay.domain.Payment;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.time.Instant;
+import java.util.List;
+
+class PaymentRepositoryImpl implements PaymentRepositoryCustom {
+
+  @PersistenceContext
+  private EntityManager em;
+
+  @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+  private int batchSize;
+
+  @Override
+  public void insertAll(List<Payment> payments) {
+    // ids são atribuídos pela aplicação: save() faria merge com um SELECT por linha
+    for (int i = 0; i < payments.size(); i++) {
+      em.persist(payments.get(i));
+      if ((i + 1) % batchSize == 0) {
+        em.flush();
+      }
+    }
+    em.flush();
+  }
+
+  @Override
+  public List<PaymentSummary> findPage(long merchantId, Payment.Status status, Instant from, Instant to,
+                                       Instant afterCreatedAt, String afterId, int limit) {
+    // só os predicados presentes entram no SQL. O índice (merchantId, createdAt, id) posiciona a busca
+    // e entrega a ordem; não é de cobertura: cada linha da página (e as descartadas pelo status) é lida na tabela
+    var jpql = new StringBuilder("select new edu.ucsal.fiadopay.controller.PaymentSummary("
+        + "p.id, p.status, p.method, p.amount, p.currency, p.installments, p.totalWithInterest, "
+        + "p.metadataOrderId, p.createdAt, p.updatedAt) from Payment p where p.merchantId = :merchantId");
+    if (afterCreatedAt != null) {
+      jpql.append(" and (p.createdAt > :afterCreatedAt or (p.createdAt = :afterCreatedAt and p.id > :afterId))");
+    }
+    if (status != null) jpql.append(" and p.status = :status");
+    if (from != null) jpql.append(" and p.createdAt >= :from");
+    if (to != null) jpql.append(" and p.createdAt < :to");
+    jpql.append(" order by p.createdAt, p.id");
+
+    TypedQuery<PaymentSummary> query = em.createQuery(jpql.toString(), PaymentSummary.class)
+        .setParameter("merchantId", merchantId)
+        .setMaxResults(limit);
+    if (afterCreatedAt != null) {
+      query.setParameter("afterCreatedAt", afterCreatedAt).setParameter("afterId", afterId);
+    }
+    if (status != null) query.setParameter("status", status);
+    if (from != null) query.setParameter("from", from);
+    if (to != null) query.setParameter("to", to);
+    return query.getResultList();
+  }
+}
@@ -0,0 +1,105 @@
+package edu.ucsal.fiadopay.service;
+
+import edu.ucsal.fiadopay.controller.PaymentResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Índice em memória (merchantId, Idempotency-Key) → id do pagamento. A
+ * primeira requisição executa; duplicatas concorrentes aguardam o id gerado
+ * por ela em vez de consultar o banco pela chave. O índice guarda só o id, e
+ * a duplicata devolve o estado atual do pagamento (como o GET), não a foto
+ * da criação. Entradas concluídas expiram após a janela configurada.
+ */
+@Component
+public class IdempotencyIndex {
+
+    private final ConcurrentHashMap<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final long windowNanos;
+    private final long waitTimeoutMs;
+
+    public IdempotencyIndex(@Value("${fiadopay.idempotency.window-ms:600000}") long windowMs,
+                            @Value("${fiadopay.idempotency.wait-timeout-ms:10000}") long waitTimeoutMs) {
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMs);
+        this.waitTimeoutMs = waitTimeoutMs;
+    }
+
+    /**
+     * Executa {@code action} uma vez por chave; as repetições recebem
+     * {@code current} aplicado ao id do pagamento criado.
+     */
+    public PaymentResponse execute(long merchantId, String idempotencyKey, Supplier<PaymentResponse> action,
+                                   Function<String, PaymentResponse> current) {
+        var key = new Key(merchantId, idempotencyKey);
+        while (true) {
+            var found = entries.get(key);
+            if (found != null && !found.isExpired(System.nanoTime())) {
+                return current.apply(await(found));
+            }
+            var mine = new Entry();
+            boolean owner = found == null
+                    ? entries.putIfAbsent(key, mine) == null
+                    : entries.replace(key, found, mine);
+            if (owner) {
+                return run(key, mine, action);
+            }
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    @Scheduled(fixedDelayString = "${fiadopay.idempotency.sweep-interval-ms:60000}")
+    public void evictExpired() {
+        long now = System.nanoTime();
+        entries.entrySet().removeIf(e -> e.getValue().isExpired(now));
+    }
+
+    private PaymentResponse run(Key key, Entry entry, Supplier<PaymentResponse> action) {
+        try {
+            var result = action.get();
+            entry.completedAt = System.nanoTime();
+            entry.result.complete(result.id());
+            return result;
+        } catch (RuntimeException e) {
+            // falhas não ficam registradas: a próxima tentativa executa de novo
+            entries.remove(key, entry);
+            entry.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private String await(Entry entry) {
+        try {
+            return entry.result.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Request with the same Idempotency-Key is still in progress");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE);
+        }
+    }
+
+    private record Key(long merchantId, String idempotencyKey) {}
+
+    private final class Entry {
+        final CompletableFuture<String> result = new CompletableFuture<>();
+        volatile long completedAt;
+
+        boolean isExpired(long now) {
+            long done = completedAt;
+            return done != 0 && now - done > windowNanos;
+        }
+    }
+}
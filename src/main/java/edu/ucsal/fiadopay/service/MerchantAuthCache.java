@@ -0,0 +1,80 @@
+package edu.ucsal.fiadopay.service;
+
+import edu.ucsal.fiadopay.core.cache.BoundedCache;
+import edu.ucsal.fiadopay.core.cache.CacheStats;
+import edu.ucsal.fiadopay.domain.Merchant;
+import edu.ucsal.fiadopay.repo.MerchantRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Cache do estado de autenticação dos merchants, evitando um findById por
+ * request em merchantFromAuth. Alterações feitas pelo MerchantAdminController
+ * invalidam a entrada explicitamente; o TTL cobre alterações feitas por fora.
+ *
+ * <p>A entrada é um {@link Snapshot} imutável, não a entidade: ela é lida por
+ * várias threads ao mesmo tempo e ninguém consegue alterá-la por engano.
+ */
+@Component
+public class MerchantAuthCache {
+
+    private static final String BEARER_PREFIX = "Bearer FAKE-";
+
+    private final MerchantRepository merchants;
+    private final BoundedCache<Long, Snapshot> cache;
+
+    public MerchantAuthCache(MerchantRepository merchants,
+                             @Value("${fiadopay.auth-cache.max-size:10000}") int maxSize,
+                             @Value("${fiadopay.auth-cache.ttl-ms:30000}") long ttlMs) {
+        this.merchants = merchants;
+        this.cache = new BoundedCache<>(maxSize, ttlMs);
+    }
+
+    public Optional<Snapshot> find(long merchantId) {
+        return Optional.ofNullable(cache.get(merchantId, id -> merchants.findById(id).map(Snapshot::of).orElse(null)));
+    }
+
+    /** Só o que já está em cache, sem ir ao banco; para quem roda segurando um lock. */
+    public Optional<Snapshot> peek(long merchantId) {
+        return Optional.ofNullable(cache.getIfPresent(merchantId));
+    }
+
+    /** Merchant do header {@code Authorization: Bearer FAKE-<id>}; vazio se o header for inválido ou o merchant não existir. */
+    public Optional<Snapshot> fromAuthorization(String auth) {
+        if (auth == null || !auth.startsWith(BEARER_PREFIX)) {
+            return Optional.empty();
+        }
+        try {
+            return find(Long.parseLong(auth.substring(BEARER_PREFIX.length())));
+        } catch (NumberFormatException ex) {
+            return Optional.empty();
+        }
+    }
+
+    public void invalidate(long merchantId) {
+        cache.invalidate(merchantId);
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    /** Campos do merchant usados por autenticação, limites, cobrança e webhooks. */
+    public record Snapshot(long id,
+                           Merchant.Status status,
+                           String clientSecret,
+                           String webhookUrl,
+                           boolean webhookBatching,
+                           Double monthlyInterestRate,
+                           Integer processingWeight,
+                           Integer rateLimitPerSecond) {
+
+        static Snapshot of(Merchant m) {
+            return new Snapshot(m.getId(), m.getStatus(), m.getClientSecret(), m.getWebhookUrl(),
+                    m.isWebhookBatching(), m.getMonthlyInterestRate(), m.getProcessingWeight(),
+                    m.getRateLimitPerSecond());
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package edu.ucsal.fiadopay.service;
+
+import edu.ucsal.fiadopay.controller.PaymentResponse;
+import edu.ucsal.fiadopay.core.cache.BoundedCache;
+import edu.ucsal.fiadopay.core.cache.CacheStats;
+import edu.ucsal.fiadopay.core.events.PaymentEventBus;
+import edu.ucsal.fiadopay.core.events.PaymentEventType;
+import edu.ucsal.fiadopay.repo.PaymentRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumSet;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Cache de leitura do GET /payments/{id}. As transições de status chegam
+ * pelo {@link PaymentEventBus} (publicadas depois do commit) e substituem a
+ * resposta em cache; o TTL é apenas uma rede de segurança para alterações
+ * feitas por fora.
+ */
+@Component
+public class PaymentReadCache {
+
+    private static final Set<PaymentEventType> TRANSITIONS = EnumSet.complementOf(EnumSet.of(PaymentEventType.PAYMENT_CREATED));
+
+    private final PaymentRepository payments;
+    private final BoundedCache<String, PaymentResponse> cache;
+
+    public PaymentReadCache(PaymentRepository payments,
+                            PaymentEventBus events,
+                            @Value("${fiadopay.payment-cache.max-size:50000}") int maxSize,
+                            @Value("${fiadopay.payment-cache.ttl-ms:60000}") long ttlMs) {
+        this.payments = payments;
+        this.cache = new BoundedCache<>(maxSize, ttlMs);
+        events.subscribe("payment-read-cache", TRANSITIONS, e -> cache.put(e.payment().id(), e.payment()));
+    }
+
+    public Optional<PaymentResponse> find(String paymentId) {
+        return Optional.ofNullable(cache.get(paymentId,
+                id -> payments.findById(id).map(PaymentResponse::of).orElse(null)));
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+}
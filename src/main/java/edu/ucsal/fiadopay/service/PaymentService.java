@@ -1,7 +1,10 @@
 package edu.ucsal.fiadopay.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsal.fiadopay.controller.PaymentBatchRequest;
+import edu.ucsal.fiadopay.controller.PaymentBatchResponse;
 import edu.ucsal.fiadopay.controller.PaymentRequest;
+import edu.ucsal.fiadopay.controller.PaymentPage;
 import edu.ucsal.fiadopay.controller.PaymentResponse;
 import edu.ucsal.fiadopay.domain.Merchant;
 import edu.ucsal.fiadopay.domain.Payment;
@@ -9,18 +12,32 @@ import edu.ucsal.fiadopay.repo.MerchantRepository;
 import edu.ucsal.fiadopay.repo.PaymentRepository;
 import edu.ucsal.fiadopay.repo.WebhookDeliveryRepository;
 import edu.ucsal.fiadopay.core.PaymentProcessor;
+import edu.ucsal.fiadopay.core.PipelineMetrics;
 import edu.ucsal.fiadopay.core.WebhookDispatcher;
+import edu.ucsal.fiadopay.core.events.PaymentEventBus;
+import edu.ucsal.fiadopay.core.expiry.PaymentExpiry;
+import edu.ucsal.fiadopay.core.events.PaymentEventType;
+import edu.ucsal.fiadopay.core.id.IdGenerator;
+import edu.ucsal.fiadopay.core.pricing.InstallmentPricing;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.async.DeferredResult;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.UUID;
 
 @Service
 public class PaymentService {
@@ -30,8 +47,19 @@ public class PaymentService {
     private final ObjectMapper objectMapper;
     private final PaymentProcessor paymentProcessor;
     private final WebhookDispatcher webhookDispatcher;
+    private final MerchantAuthCache merchantAuthCache;
+    private final IdempotencyIndex idempotencyIndex;
+    private final TransactionTemplate tx;
+    private final PipelineMetrics metrics;
+    private final InstallmentPricing pricing;
+    private final PaymentReadCache paymentReadCache;
+    private final PaymentStatusNotifier statusNotifier;
+    private final IdGenerator idGenerator;
+    private final PaymentExpiry paymentExpiry;
+    private final PaymentEventBus events;
+
+    private static final int MAX_PAGE_SIZE = 500;
 
-    @Value("${fiadopay.webhook-secret}") String secret;
     @Value("${fiadopay.processing-delay-ms}") long delay;
     @Value("${fiadopay.failure-rate}") double failRate;
 
@@ -40,96 +68,248 @@ public class PaymentService {
                           WebhookDeliveryRepository deliveries,
                           ObjectMapper objectMapper,
                           PaymentProcessor paymentProcessor,
-                          WebhookDispatcher webhookDispatcher) {
+                          WebhookDispatcher webhookDispatcher,
+                          MerchantAuthCache merchantAuthCache,
+                          IdempotencyIndex idempotencyIndex,
+                          PlatformTransactionManager transactionManager,
+                          PipelineMetrics metrics,
+                          InstallmentPricing pricing,
+                          PaymentReadCache paymentReadCache,
+                          PaymentStatusNotifier statusNotifier,
+                          IdGenerator idGenerator,
+                          PaymentExpiry paymentExpiry,
+                          PaymentEventBus events) {
         this.merchants = merchants;
         this.payments = payments;
         this.deliveries = deliveries;
         this.objectMapper = objectMapper;
         this.paymentProcessor = paymentProcessor;
         this.webhookDispatcher = webhookDispatcher;
+        this.merchantAuthCache = merchantAuthCache;
+        this.idempotencyIndex = idempotencyIndex;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.metrics = metrics;
+        this.pricing = pricing;
+        this.paymentReadCache = paymentReadCache;
+        this.statusNotifier = statusNotifier;
+        this.idGenerator = idGenerator;
+        this.paymentExpiry = paymentExpiry;
+        this.events = events;
     }
 
-    private Merchant merchantFromAuth(String auth){
-        if (auth == null || !auth.startsWith("Bearer FAKE-")) {
-            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED);
-        }
-        var raw = auth.substring("Bearer FAKE-".length());
-        long id;
-        try {
-            id = Long.parseLong(raw);
-        } catch (NumberFormatException ex) {
-            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED);
-        }
-        var merchant = merchants.findById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
-        if (merchant.getStatus() != Merchant.Status.ACTIVE) {
+    private MerchantAuthCache.Snapshot merchantFromAuth(String auth){
+        var merchant = merchantAuthCache.fromAuthorization(auth)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
+        if (merchant.status() != Merchant.Status.ACTIVE) {
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED);
         }
         return merchant;
     }
 
-    @Transactional
     public PaymentResponse createPayment(String auth, String idemKey, PaymentRequest req){
+        return metrics.paymentCreate().record(() -> doCreatePayment(auth, idemKey, req));
+    }
+
+    private PaymentResponse doCreatePayment(String auth, String idemKey, PaymentRequest req){
         var merchant = merchantFromAuth(auth);
-        var mid = merchant.getId();
+        if (idemKey == null) {
+            return tx.execute(status -> create(merchant, null, req));
+        }
+        // duplicatas concorrentes aguardam a primeira requisição no índice em
+        // memória e recebem o estado atual do pagamento, como no GET
+        return idempotencyIndex.execute(merchant.id(), idemKey, () -> {
+            try {
+                return tx.execute(status -> create(merchant, idemKey, req));
+            } catch (DataIntegrityViolationException e) {
+                // outra instância gravou a mesma chave primeiro (uk_payment_merchant_idempotency)
+                return payments.findByIdempotencyKeyAndMerchantId(idemKey, merchant.id())
+                        .map(this::toResponse)
+                        .orElseThrow(() -> e);
+            }
+        }, this::getPayment);
+    }
+
+    private PaymentResponse create(MerchantAuthCache.Snapshot merchant, String idemKey, PaymentRequest req){
+        var mid = merchant.id();
 
         if (idemKey != null) {
             var existing = payments.findByIdempotencyKeyAndMerchantId(idemKey, mid);
             if(existing.isPresent()) return toResponse(existing.get());
         }
 
-        Double interest = null;
-        BigDecimal total = req.amount();
-        if ("CARD".equalsIgnoreCase(req.method()) && req.installments()!=null && req.installments()>1){
-            interest = 1.0; // 1%/mês
-            var base = new BigDecimal("1.01");
-            var factor = base.pow(req.installments());
-            total = req.amount().multiply(factor).setScale(2, RoundingMode.HALF_UP);
+        var payment = newPayment(merchant, idemKey, req);
+
+        payments.save(payment);
+
+        // registrado antes do agendamento: CREATED sai antes da transição do processamento
+        events.publish(PaymentEventType.PAYMENT_CREATED, payment);
+
+        // Delegar processamento assíncrono ao PaymentProcessor (usa AsyncExecutor internamente)
+        paymentProcessor.submit(payment);
+
+        return toResponse(payment);
+    }
+
+    /**
+     * Cria um lote inteiro em uma transação: um único merchantFromAuth, uma
+     * consulta IN para as Idempotency-Keys já usadas e inserts em lotes JDBC.
+     * Os novos pagamentos vão ao PaymentProcessor juntos (outbox na mesma
+     * transação, agendamento depois do commit).
+     */
+    public PaymentBatchResponse createBatch(String auth, PaymentBatchRequest req){
+        var merchant = merchantFromAuth(auth);
+        var items = req.items();
+
+        var keys = new HashSet<String>();
+        for (var item : items) {
+            if (item.idempotencyKey() != null) keys.add(item.idempotencyKey());
+        }
+
+        try {
+            return tx.execute(status -> {
+                var byKey = new HashMap<String, Payment>();
+                if (!keys.isEmpty()) {
+                    payments.findByMerchantIdAndIdempotencyKeyIn(merchant.id(), keys)
+                            .forEach(p -> byKey.put(p.getIdempotencyKey(), p));
+                }
+
+                var fresh = new ArrayList<Payment>();
+                var results = new ArrayList<PaymentBatchResponse.Item>(items.size());
+                for (int i = 0; i < items.size(); i++) {
+                    var item = items.get(i);
+                    var key = item.idempotencyKey();
+                    // chave repetida (já gravada ou antes no mesmo lote) devolve o mesmo pagamento
+                    var existing = key == null ? null : byKey.get(key);
+                    if (existing != null) {
+                        results.add(new PaymentBatchResponse.Item(i, key, true, toResponse(existing)));
+                        continue;
+                    }
+                    var payment = newPayment(merchant, key, item.toRequest());
+                    fresh.add(payment);
+                    if (key != null) byKey.put(key, payment);
+                    results.add(new PaymentBatchResponse.Item(i, key, false, toResponse(payment)));
+                }
+
+                payments.insertAll(fresh);
+
+                fresh.forEach(payment -> events.publish(PaymentEventType.PAYMENT_CREATED, payment));
+                paymentProcessor.submitAll(merchant.id(), fresh);
+
+                return new PaymentBatchResponse(fresh.size(), items.size() - fresh.size(), results);
+            });
+        } catch (DataIntegrityViolationException e) {
+            // outra requisição gravou uma das chaves entre o IN e o insert
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Idempotency key used concurrently, retry the batch");
         }
+    }
 
-        var payment = Payment.builder()
-                .id("pay_"+UUID.randomUUID().toString().substring(0,8))
-                .merchantId(mid)
+    private Payment newPayment(MerchantAuthCache.Snapshot merchant, String idemKey, PaymentRequest req){
+        int installments = req.installments()==null?1:req.installments();
+        var quote = pricing.quote(merchant.monthlyInterestRate(), req.method(), req.amount(), installments);
+        var now = Instant.now();
+
+        return Payment.builder()
+                .id(idGenerator.next("pay_"))
+                .merchantId(merchant.id())
                 .method(req.method().toUpperCase())
                 .amount(req.amount())
                 .currency(req.currency())
-                .installments(req.installments()==null?1:req.installments())
-                .monthlyInterest(interest)
-                .totalWithInterest(total)
+                .installments(installments)
+                .monthlyInterest(quote.monthlyInterest())
+                .totalWithInterest(quote.totalWithInterest())
                 .status(Payment.Status.PENDING)
-                .createdAt(Instant.now())
-                .updatedAt(Instant.now())
+                .createdAt(now)
+                .updatedAt(now)
+                .expiresAt(paymentExpiry.expiresAt(req.method(), now))
                 .idempotencyKey(idemKey)
                 .metadataOrderId(req.metadataOrderId())
+                .webhookUrl(merchant.webhookUrl())
                 .build();
+    }
 
-        payments.save(payment);
+    public PaymentResponse getPayment(String id){
+        return paymentReadCache.find(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+    }
 
-        // Delegar processamento assíncrono ao PaymentProcessor (usa AsyncExecutor internamente)
-        paymentProcessor.submit(payment.getId());
+    /**
+     * Listagem dos pagamentos do merchant por keyset: cada página continua
+     * depois do (createdAt, id) do cursor, com custo constante em qualquer
+     * profundidade, e as linhas vêm como projeção, sem carregar entidades.
+     */
+    public PaymentPage listPayments(String auth, Payment.Status status, Instant from, Instant to,
+                                    String cursor, int limit){
+        var merchant = merchantFromAuth(auth);
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        Instant afterCreatedAt = null;
+        String afterId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] position = decodeCursor(cursor);
+            afterCreatedAt = Instant.parse(position[0]);
+            afterId = position[1];
+        }
+        // uma linha a mais só para saber se existe próxima página
+        var rows = payments.findPage(merchant.id(), status, from, to, afterCreatedAt, afterId, limit + 1);
+        if (rows.size() <= limit) {
+            return new PaymentPage(rows, null);
+        }
+        var page = rows.subList(0, limit);
+        var last = page.get(limit - 1);
+        return new PaymentPage(List.copyOf(page), encodeCursor(last.createdAt(), last.id()));
+    }
 
-        return toResponse(payment);
+    private static String encodeCursor(Instant createdAt, String id){
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((createdAt + "|" + id).getBytes(StandardCharsets.UTF_8));
     }
 
-    public PaymentResponse getPayment(String id){
-        return toResponse(payments.findById(id)
+    private static String[] decodeCursor(String cursor){
+        try {
+            String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", 2);
+            if (position.length == 2) {
+                Instant.parse(position[0]);
+                return position;
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            // cai no 400 abaixo
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+    }
+
+    /** Long-poll: responde quando o pagamento sair de PENDING ou no timeout, com o estado atual. */
+    public DeferredResult<PaymentResponse> awaitPayment(String id, long timeoutMs){
+        getPayment(id); // 404 antes de abrir a espera
+        // lido do banco: o cache é outro consumidor do barramento e pode ainda não ter a transição
+        return statusNotifier.await(id, timeoutMs, () -> payments.findById(id)
+                .map(this::toResponse)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND)));
     }
 
+    /** SSE com as transições de todos os pagamentos do merchant autenticado. */
+    public SseEmitter subscribe(String auth){
+        return statusNotifier.subscribe(merchantFromAuth(auth).id());
+    }
+
     public Map<String,Object> refund(String auth, String paymentId){
         var merchant = merchantFromAuth(auth);
-        var p = payments.findById(paymentId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
-        if (!merchant.getId().equals(p.getMerchantId())) {
-            throw new ResponseStatusException(HttpStatus.FORBIDDEN);
-        }
-        p.setStatus(Payment.Status.REFUNDED);
-        p.setUpdatedAt(Instant.now());
-        payments.save(p);
+        // status e linha de outbox do webhook gravados juntos
+        tx.executeWithoutResult(status -> {
+            var p = payments.findById(paymentId)
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+            if (merchant.id() != p.getMerchantId()) {
+                throw new ResponseStatusException(HttpStatus.FORBIDDEN);
+            }
+            p.setStatus(Payment.Status.REFUNDED);
+            p.setUpdatedAt(Instant.now());
+            payments.save(p);
+            events.publish(PaymentEventType.PAYMENT_REFUNDED, p);
 
-        // Delegar envio de webhook ao dispatcher
-        webhookDispatcher.enqueuePaymentEvent(p);
+            webhookDispatcher.enqueuePaymentEvent(p);
+        });
 
-        return Map.of("id","ref_"+UUID.randomUUID(),"status","PENDING");
+        return Map.of("id",idGenerator.next("ref_"),"status","PENDING");
     }
 
     // NOTE: processAndWebhook / sendWebhook / tryDeliver foram removidos e delegados ao WebhookDispatcher.
@@ -137,10 +317,6 @@ public class PaymentService {
     // de entrega agora é do WebhookDispatcher.
 
     private PaymentResponse toResponse(Payment p){
-        return new PaymentResponse(
-                p.getId(), p.getStatus().name(), p.getMethod(),
-                p.getAmount(), p.getInstallments(), p.getMonthlyInterest(),
-                p.getTotalWithInterest()
-        );
+        return PaymentResponse.of(p);
     }
 }
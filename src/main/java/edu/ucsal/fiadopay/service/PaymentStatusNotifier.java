@@ -0,0 +1,199 @@
+package edu.ucsal.fiadopay.service;
+
+import edu.ucsal.fiadopay.controller.PaymentResponse;
+import edu.ucsal.fiadopay.core.events.PaymentEventBus;
+import edu.ucsal.fiadopay.core.events.PaymentEventType;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Entrega transições de status a clientes que aguardam um pagamento
+ * (long-poll com DeferredResult) ou assinam todos os pagamentos de um
+ * merchant (SSE). As esperas são assíncronas no servlet, então nenhuma
+ * thread fica presa enquanto o pagamento está PENDING. As transições chegam
+ * pelo {@link PaymentEventBus}, fora da thread de quem mudou o status.
+ *
+ * <p>O consumidor do barramento nunca escreve no socket: cada stream SSE tem
+ * uma fila limitada, esvaziada por uma virtual thread. Um cliente lento que
+ * deixa a fila encher tem o stream encerrado (e reconecta), em vez de segurar
+ * o barramento e, com ele, quem publica as transições.
+ */
+@Component
+public class PaymentStatusNotifier {
+
+    private final ConcurrentHashMap<String, Set<DeferredResult<PaymentResponse>>> waiters = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Set<Stream>> streams = new ConcurrentHashMap<>();
+    private final AtomicInteger open = new AtomicInteger();
+    private final ExecutorService writers = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final int maxOpen;
+    private final long maxWaitMs;
+    private final long streamTimeoutMs;
+    private final int streamBuffer;
+
+    public PaymentStatusNotifier(PaymentEventBus events,
+                                 @Value("${fiadopay.notify.max-open:10000}") int maxOpen,
+                                 @Value("${fiadopay.notify.max-wait-ms:60000}") long maxWaitMs,
+                                 @Value("${fiadopay.notify.stream-timeout-ms:1800000}") long streamTimeoutMs,
+                                 @Value("${fiadopay.notify.stream-buffer:256}") int streamBuffer) {
+        this.maxOpen = maxOpen;
+        this.maxWaitMs = maxWaitMs;
+        this.streamTimeoutMs = streamTimeoutMs;
+        this.streamBuffer = streamBuffer;
+        events.subscribe("status-notifier",
+                EnumSet.complementOf(EnumSet.of(PaymentEventType.PAYMENT_CREATED)),
+                e -> dispatch(e.merchantId(), e.payment()));
+    }
+
+    /**
+     * Long-poll: completa na próxima transição do pagamento ou, no timeout,
+     * com o estado atual. {@code current} é consultado depois do registro
+     * para não perder uma transição que aconteça no meio, e precisa ler a
+     * fonte (o banco): o {@link PaymentReadCache} consome o barramento em
+     * paralelo e pode ainda estar em PENDING quando a transição já passou
+     * por aqui.
+     */
+    public DeferredResult<PaymentResponse> await(String paymentId, long timeoutMs,
+                                                 Supplier<PaymentResponse> current) {
+        reserve();
+        var result = new DeferredResult<PaymentResponse>(Math.min(Math.max(timeoutMs, 1), maxWaitMs));
+        register(waiters, paymentId, result);
+        result.onCompletion(() -> {
+            unregister(waiters, paymentId, result);
+            open.decrementAndGet();
+        });
+        result.onTimeout(() -> result.setResult(current.get()));
+
+        PaymentResponse now = current.get();
+        if (!"PENDING".equals(now.status())) {
+            result.setResult(now);
+        }
+        return result;
+    }
+
+    public SseEmitter subscribe(long merchantId) {
+        reserve();
+        var emitter = new SseEmitter(streamTimeoutMs);
+        var stream = new Stream(emitter, streamBuffer);
+        register(streams, merchantId, stream);
+        Runnable cleanup = () -> {
+            if (unregister(streams, merchantId, stream)) {
+                open.decrementAndGet();
+            }
+        };
+        emitter.onCompletion(cleanup);
+        emitter.onTimeout(cleanup);
+        emitter.onError(e -> cleanup.run());
+        return emitter;
+    }
+
+    public int openCount() {
+        return open.get();
+    }
+
+    private void dispatch(long merchantId, PaymentResponse response) {
+        var pending = waiters.remove(response.id());
+        if (pending != null) {
+            pending.forEach(r -> r.setResult(response));
+        }
+        var subscribers = streams.get(merchantId);
+        if (subscribers != null) {
+            for (Stream stream : subscribers) {
+                stream.offer(SseEmitter.event().name("payment").id(response.id()).data(response));
+            }
+        }
+    }
+
+    // comentário periódico mantém proxies abertos e detecta clientes que sumiram
+    @Scheduled(fixedDelayString = "${fiadopay.notify.heartbeat-ms:15000}")
+    public void heartbeat() {
+        streams.values().forEach(set -> set.forEach(s -> s.offer(SseEmitter.event().comment("keep-alive"))));
+    }
+
+    @PreDestroy
+    public void stop() {
+        writers.shutdownNow();
+    }
+
+    /** Stream SSE com fila própria; no máximo um writer por vez, na ordem de chegada. */
+    private final class Stream {
+        final SseEmitter emitter;
+        final ArrayBlockingQueue<SseEmitter.SseEventBuilder> queue;
+        final AtomicBoolean draining = new AtomicBoolean();
+
+        Stream(SseEmitter emitter, int capacity) {
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+
+        void offer(SseEmitter.SseEventBuilder event) {
+            if (!queue.offer(event)) {
+                // cliente não acompanha: encerra em vez de bloquear quem publica
+                queue.clear();
+                emitter.complete();
+                return;
+            }
+            if (draining.compareAndSet(false, true)) {
+                writers.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            do {
+                SseEmitter.SseEventBuilder event;
+                while ((event = queue.poll()) != null) {
+                    try {
+                        emitter.send(event);
+                    } catch (IOException | IllegalStateException e) {
+                        queue.clear();
+                        emitter.completeWithError(e);
+                    }
+                }
+                draining.set(false);
+                // um offer entre o último poll e o set(false) não agendou writer
+            } while (!queue.isEmpty() && draining.compareAndSet(false, true));
+        }
+    }
+
+    // add/remove dentro do compute para que um conjunto vazio nunca seja removido com um novo membro
+    private static <K, V> void register(ConcurrentHashMap<K, Set<V>> map, K key, V value) {
+        map.compute(key, (k, set) -> {
+            if (set == null) set = ConcurrentHashMap.newKeySet();
+            set.add(value);
+            return set;
+        });
+    }
+
+    private static <K, V> boolean unregister(ConcurrentHashMap<K, Set<V>> map, K key, V value) {
+        boolean[] removed = {false};
+        map.computeIfPresent(key, (k, set) -> {
+            removed[0] = set.remove(value);
+            return set.isEmpty() ? null : set;
+        });
+        return removed[0];
+    }
+
+    private void reserve() {
+        if (open.incrementAndGet() > maxOpen) {
+            open.decrementAndGet();
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Too many open status subscriptions");
+        }
+    }
+}